@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the representative puzzles in src/main/resources/puzzles.  Puzzle
+ * parameters name a puzzle file and a device count, like "xor.txt:3".
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class BenchmarkPuzzles {
+	private BenchmarkPuzzles() {}
+
+	static Problem problem(String param) {
+		String name = param.substring(0, param.indexOf(':'));
+		try {
+			return Problem.fromLines(Resources.readLines(Resources.getResource("puzzles/"+name), StandardCharsets.UTF_8));
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	static Inventory inventory(String param) {
+		return Inventory.of(Integer.parseInt(param.substring(param.indexOf(':')+1)));
+	}
+
+	static Search search(String param) {
+		return new Search(problem(param), inventory(param));
+	}
+}
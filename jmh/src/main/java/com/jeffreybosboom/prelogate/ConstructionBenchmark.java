@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Search construction: materializing the widest row, generating
+ * partitions, and the whole constructor (pruning included).
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+	@Param({"and.txt:3", "or3.txt:4", "xor.txt:3"})
+	public String puzzle;
+	private Problem problem;
+	private Inventory inventory;
+	private Search search;
+	private List<Set<Device>> widestRow;
+	private List<Direction> widestRowTerminals;
+
+	@Setup
+	public void setup() {
+		problem = BenchmarkPuzzles.problem(puzzle);
+		inventory = BenchmarkPuzzles.inventory(puzzle);
+		search = new Search(problem, inventory);
+		List<List<Set<Device>>> grid = Search.devicesAsGrid(search.shape(), search.domains());
+		int widest = IntStream.range(0, grid.size()).boxed()
+				.max(Comparator.comparingLong(r -> grid.get(r).stream().mapToLong(Set::size).reduce(1, Math::multiplyExact)))
+				.get();
+		widestRow = grid.get(widest);
+		widestRowTerminals = search.rowTerminals(widest);
+	}
+
+	@Benchmark
+	public Map<Integer, List<List<Device>>> materializeRow() {
+		return search.materialize(widestRow, widestRowTerminals);
+	}
+
+	@Benchmark
+	public List<int[]> partitions() {
+		return search.computePartitions();
+	}
+
+	@Benchmark
+	public Search construct() {
+		return new Search(problem, inventory);
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures Device.operate over every device and input.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceBenchmark {
+	private static final int OPERATIONS = 16 * 32; //inputs * devices, checked in setup
+	private Device[] devices;
+	private LaserDirection[] inputs;
+
+	@Setup
+	public void setup() {
+		List<Device> list = new ArrayList<>();
+		for (BasicDevice d : BasicDevice.values()) {
+			list.add(d);
+			list.addAll(RotatedDevice.from(d));
+		}
+		devices = list.toArray(new Device[0]);
+		inputs = LaserDirection.all().toArray(LaserDirection[]::new);
+		if (devices.length * inputs.length != OPERATIONS)
+			throw new AssertionError(devices.length * inputs.length);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERATIONS)
+	public void operate(Blackhole bh) {
+		for (Device d : devices)
+			for (LaserDirection i : inputs)
+				bh.consume(d.operate(i));
+	}
+}
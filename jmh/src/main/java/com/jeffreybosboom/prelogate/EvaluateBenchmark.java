@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures evaluating a single candidate board: a solution, which simulates
+ * every truth table row, and the first rejected trial.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluateBenchmark {
+	@Param({"and.txt:3", "or3.txt:4", "xor.txt:3"})
+	public String puzzle;
+	private Search search;
+	private List<List<Device>> solution, rejected;
+
+	@Setup
+	public void setup() {
+		search = BenchmarkPuzzles.search(puzzle);
+		for (long i = 0; i < search.countTrials() && (solution == null || rejected == null); ++i) {
+			List<List<Device>> board = search.trial(i);
+			if (search.isSolution(board)) {
+				if (solution == null) solution = board;
+			} else if (rejected == null)
+				rejected = board;
+		}
+		if (solution == null || rejected == null)
+			throw new AssertionError(puzzle+" needs a solution and a rejected trial");
+	}
+
+	@Benchmark
+	public boolean solution() {
+		return search.isSolution(solution);
+	}
+
+	@Benchmark
+	public boolean rejected() {
+		return search.isSolution(rejected);
+	}
+}
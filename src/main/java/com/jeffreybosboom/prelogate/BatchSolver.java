@@ -0,0 +1,205 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves many puzzles in one JVM.  Puzzles are solved from a parallel stream
+ * in a fork-join pool, and each search's own parallel stream runs in the
+ * same pool, so small puzzles run side by side while a big puzzle's work
+ * units spread across whatever threads are idle.
+ * <p>
+ * Usage: BatchSolver device-count puzzle-file-or-directory... [--inventory spec]
+ * [--limit n | --first] [--solutions-dir dir] [--results file] [--threads n]
+ * <p>
+ * A puzzle argument beginning with @ names a file listing puzzles, one per
+ * line: a path, optionally followed by a tab and that puzzle's device count,
+ * and optionally by another tab and its inventory spec; puzzles without a
+ * count use the command line's count and inventory.  One tab-separated
+ * result record is written per puzzle: path, status, trials, total trials,
+ * solutions, seconds, signature cache hit rate, device count and inventory
+ * limits.
+ * <p>
+ * With --solutions-dir, each puzzle's solutions go to its file name plus
+ * .bin, under a subdirectory named for the directory argument it came from,
+ * if any.  Puzzles whose solution files would collide are rejected before
+ * solving starts.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class BatchSolver {
+	private final long limit;
+	private final Path solutionsDir;
+	private final PrintStream results;
+	private BatchSolver(long limit, Path solutionsDir, PrintStream results) {
+		this.limit = limit;
+		this.solutionsDir = solutionsDir;
+		this.results = results;
+	}
+
+	private static final class Job {
+		final Path puzzle;
+		final Inventory inventory;
+		/**
+		 * The solution file's path relative to the solutions directory.
+		 */
+		final Path output;
+		Job(Path puzzle, Inventory inventory, Path output) {
+			this.puzzle = puzzle;
+			this.inventory = inventory;
+			this.output = output;
+		}
+		Job(Path puzzle, Inventory inventory) {
+			this(puzzle, inventory, Paths.get(puzzle.getFileName()+".bin"));
+		}
+	}
+
+	private void solve(Job job) {
+		Path puzzle = job.puzzle;
+		Inventory inventory = job.inventory;
+		String record;
+		try {
+			Search search = new Search(Problem.fromFile(puzzle), inventory);
+			SolutionSink sink = solutionsDir != null
+					? SolutionFile.create(solutionsDir.resolve(job.output), search.rowLengths())
+					: SolutionSink.discarding();
+			SearchStatistics stats;
+			try (SolutionSink s = sink) {
+				stats = search.search(limit, s, null);
+			}
+			record = String.format("%s\t%s\t%d\t%d\t%d\t%.3f\t%.3f\t%d\t%s", puzzle,
+					stats.stoppedEarly() ? "stopped" : "complete", stats.trials(), stats.totalTrials(),
+					stats.solutions(), stats.elapsedNanos() / 1e9, stats.signatureHitRate(),
+					inventory.total(), inventory.canonicalLimits());
+		} catch (IOException | RuntimeException ex) {
+			record = String.format("%s\terror: %s\t\t\t\t\t\t%d\t%s", puzzle, ex.toString().replace('\t', ' ').replace('\n', ' '),
+					inventory.total(), inventory.canonicalLimits());
+		}
+		results.println(record);
+	}
+
+	private static List<Job> expand(String arg, Inventory inventory) throws IOException {
+		if (arg.startsWith("@"))
+			return Files.readAllLines(Paths.get(arg.substring(1))).stream()
+					.map(String::trim).filter(l -> !l.isEmpty())
+					.map(l -> parseLine(l, inventory)).collect(Collectors.toList());
+		Path p = Paths.get(arg);
+		if (Files.isDirectory(p))
+			try (Stream<Path> files = Files.list(p)) {
+				//keep the directory's name, so same-named puzzles in different directories don't collide
+				Path dirName = p.toAbsolutePath().normalize().getFileName();
+				return files.filter(Files::isRegularFile).sorted()
+						.map(f -> new Job(f, inventory, dirName == null ? Paths.get(f.getFileName()+".bin")
+								: dirName.resolve(f.getFileName()+".bin")))
+						.collect(Collectors.toList());
+			}
+		List<Job> list = new ArrayList<>(1);
+		list.add(new Job(p, inventory));
+		return list;
+	}
+
+	/**
+	 * Parses a list file line: a path, then optionally a device count and an
+	 * inventory spec, tab-separated.
+	 */
+	private static Job parseLine(String line, Inventory inventory) {
+		String[] fields = line.split("\t");
+		if (fields.length > 3)
+			throw new IllegalArgumentException("bad puzzle list line: "+line);
+		if (fields.length > 1) {
+			int deviceCount = Integer.parseInt(fields[1].trim());
+			inventory = fields.length > 2 ? Inventory.parse(fields[2].trim(), deviceCount) : Inventory.of(deviceCount);
+		}
+		return new Job(Paths.get(fields[0].trim()), inventory);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int deviceCount = Integer.valueOf(args[0]);
+		Inventory inventory = Inventory.of(deviceCount);
+		long limit = Long.MAX_VALUE;
+		Path solutionsDir = null, resultsPath = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<String> puzzleArgs = new ArrayList<>();
+		for (int i = 1; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--inventory":
+					inventory = Inventory.parse(args[++i], deviceCount);
+					break;
+				case "--first":
+					limit = 1;
+					break;
+				case "--limit":
+					limit = Long.parseLong(args[++i]);
+					break;
+				case "--solutions-dir":
+					solutionsDir = Paths.get(args[++i]);
+					break;
+				case "--results":
+					resultsPath = Paths.get(args[++i]);
+					break;
+				case "--threads":
+					threads = Integer.parseInt(args[++i]);
+					break;
+				default:
+					if (args[i].startsWith("--"))
+						throw new IllegalArgumentException("unknown option: "+args[i]);
+					puzzleArgs.add(args[i]);
+			}
+		}
+		//expand after parsing, so --inventory applies wherever it appears
+		List<Job> puzzles = new ArrayList<>();
+		for (String arg : puzzleArgs)
+			puzzles.addAll(expand(arg, inventory));
+		if (solutionsDir != null) {
+			Map<Path, Path> outputs = new HashMap<>();
+			for (Job job : puzzles) {
+				Path other = outputs.putIfAbsent(job.output, job.puzzle);
+				if (other != null)
+					throw new IllegalArgumentException(String.format("%s and %s would both write solutions to %s",
+							other, job.puzzle, solutionsDir.resolve(job.output)));
+			}
+			for (Job job : puzzles)
+				Files.createDirectories(solutionsDir.resolve(job.output).getParent());
+		}
+
+		PrintStream results = resultsPath != null ? new PrintStream(Files.newOutputStream(resultsPath), true, "UTF-8") : System.out;
+		BatchSolver solver = new BatchSolver(limit, solutionsDir, results);
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.submit(() -> puzzles.parallelStream().forEach(solver::solve)).get();
+		} finally {
+			pool.shutdown();
+		}
+		System.err.format("%d puzzles in %.3fs%n", puzzles.size(), (System.nanoTime() - start) / 1e9);
+		if (results != System.out)
+			results.close();
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.Arrays;
+
+/**
+ * The cells of a board, numbered row-major from 0 so per-cell data can live
+ * in flat arrays and lists indexed by cell.  Rows may differ in length.
+ * Positions off the board have index -1.  Neighbors are precomputed, so
+ * moving between cells costs an array load, like the interned Coordinates
+ * this replaces (which capped boards at 10x10).
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class BoardShape {
+	private static final int[] DR = {-1, 0, 1, 0}, DC = {0, 1, 0, -1};
+	/**
+	 * rowStarts[r] is the index of row r's first cell; rowStarts[rows] is the
+	 * number of cells.
+	 */
+	private final int[] rowStarts;
+	private final int[] rowOf, colOf;
+	/**
+	 * The neighbor of cell i in direction d (by ordinal) is at i * 4 + d.
+	 */
+	private final int[] neighbors;
+	public BoardShape(int[] rowLengths) {
+		this.rowStarts = new int[rowLengths.length + 1];
+		for (int r = 0; r < rowLengths.length; ++r) {
+			if (rowLengths[r] < 0)
+				throw new IllegalArgumentException("bad row length: "+rowLengths[r]);
+			rowStarts[r+1] = Math.addExact(rowStarts[r], rowLengths[r]);
+		}
+		this.rowOf = new int[cells()];
+		this.colOf = new int[cells()];
+		for (int r = 0; r < rows(); ++r)
+			for (int c = 0; c < rowLength(r); ++c) {
+				rowOf[rowStarts[r] + c] = r;
+				colOf[rowStarts[r] + c] = c;
+			}
+		this.neighbors = new int[Math.multiplyExact(cells(), 4)];
+		for (int i = 0; i < cells(); ++i)
+			for (int d = 0; d < 4; ++d)
+				neighbors[i * 4 + d] = index(rowOf[i] + DR[d], colOf[i] + DC[d]);
+	}
+
+	public static BoardShape rectangle(int rows, int cols) {
+		int[] rowLengths = new int[rows];
+		Arrays.fill(rowLengths, cols);
+		return new BoardShape(rowLengths);
+	}
+
+	public int rows() {
+		return rowStarts.length - 1;
+	}
+
+	public int rowLength(int row) {
+		return rowStarts[row+1] - rowStarts[row];
+	}
+
+	public int[] rowLengths() {
+		int[] lengths = new int[rows()];
+		for (int r = 0; r < lengths.length; ++r)
+			lengths[r] = rowLength(r);
+		return lengths;
+	}
+
+	public int cells() {
+		return rowStarts[rowStarts.length - 1];
+	}
+
+	/**
+	 * Returns the index of the cell at the given position, or -1 if it's off
+	 * the board.
+	 */
+	public int index(int row, int col) {
+		if (row < 0 || row >= rows() || col < 0 || col >= rowLength(row))
+			return -1;
+		return rowStarts[row] + col;
+	}
+
+	public int row(int index) {
+		return rowOf[index];
+	}
+
+	public int col(int index) {
+		return colOf[index];
+	}
+
+	/**
+	 * Returns the index of the given cell's neighbor in the given direction,
+	 * or -1 if it's off the board.
+	 */
+	public int neighbor(int index, Direction d) {
+		return neighbors[index * 4 + d.ordinal()];
+	}
+
+	/**
+	 * Returns the index of the first cell of the given row.
+	 */
+	public int rowStart(int row) {
+		return rowStarts[row];
+	}
+
+	public Coordinate coordinate(int index) {
+		return Coordinate.at(rowOf[index], colOf[index]);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof BoardShape && Arrays.equals(rowStarts, ((BoardShape)obj).rowStarts);
+	}
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(rowStarts);
+	}
+	@Override
+	public String toString() {
+		return Arrays.toString(rowLengths());
+	}
+}
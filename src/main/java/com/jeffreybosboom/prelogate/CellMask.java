@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set of cells, with the sum of their cell hashes for a board, and a
+ * count of how often it's been used (for choosing which masks to look
+ * boards up under).
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class CellMask {
+	final int[] cells;
+	/**
+	 * The number of trailing rows without any of these cells.
+	 */
+	final int freeRows;
+	private final long[][] cellHashes;
+	final LongAdder uses = new LongAdder();
+	CellMask(BitSet cells, BoardShape shape, long[][] cellHashes) {
+		this.cells = cells.stream().toArray();
+		this.freeRows = shape.rows() - 1 - (this.cells.length == 0 ? -1 : shape.row(this.cells[this.cells.length-1]));
+		this.cellHashes = cellHashes;
+	}
+	long hash(byte[] codes) {
+		long hash = 0;
+		for (int i : cells)
+			hash += cellHashes[i][codes[i]];
+		return hash;
+	}
+	/**
+	 * Returns the given board codes of this mask's cells.
+	 */
+	byte[] project(byte[] codes) {
+		byte[] projection = new byte[cells.length];
+		for (int i = 0; i < cells.length; ++i)
+			projection[i] = codes[cells[i]];
+		return projection;
+	}
+	boolean matches(byte[] projection, byte[] codes) {
+		for (int i = 0; i < cells.length; ++i)
+			if (projection[i] != codes[cells[i]])
+				return false;
+		return true;
+	}
+	/**
+	 * Returns the (at most) limit masks with the most uses.
+	 */
+	static CellMask[] mostUsed(Collection<CellMask> masks, int limit) {
+		return masks.stream()
+				.sorted(Comparator.comparingLong((CellMask m) -> m.uses.sum()).reversed())
+				.limit(limit)
+				.toArray(CellMask[]::new);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records which work units of a search have completed, so a killed search
+ * can resume where it left off.  Solutions from completed units are the
+ * first {@link #outputLength()} bytes of the search's solution file; when
+ * solutions are printed instead, the previous run's output holds them.
+ * Solutions from units left unfinished by a search stopping early follow
+ * them in the file (resuming truncates them away and reruns those units),
+ * and aren't printed at all.
+ * <p>
+ * A checkpoint records a key identifying the puzzle, inventory and pruning
+ * rules it was made for (a {@link SolutionCache#key solution cache key}),
+ * so resuming a different search is detected even if its trial counts
+ * match.
+ * <p>
+ * Checkpoints are written to a temporary file and renamed over the old one,
+ * so a crash mid-write leaves the previous checkpoint intact.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class Checkpoint {
+	private static final int MAGIC = 0x504c4743; //"PLGC"
+	private static final int VERSION = 2;
+	private final Path path;
+	private final String searchKey;
+	private final long intervalNanos;
+	//identifies the work-unit division this checkpoint applies to
+	private long totalTrials = -1, begin, end, unitTrials;
+	private int units;
+	private BitSet completed = new BitSet();
+	private long solutions, outputLength = -1;
+	private Checkpoint(Path path, String searchKey, long interval, TimeUnit unit) {
+		this.path = path;
+		this.searchKey = searchKey;
+		this.intervalNanos = unit.toNanos(interval);
+	}
+
+	/**
+	 * Returns a checkpoint with no completed work for the search with the
+	 * given key that will be saved to the given path.
+	 */
+	public static Checkpoint create(Path path, String searchKey, long interval, TimeUnit unit) {
+		return new Checkpoint(path, searchKey, interval, unit);
+	}
+
+	/**
+	 * Loads the checkpoint at the given path, or returns a new checkpoint if
+	 * there isn't one, throwing if it was saved by the search with a
+	 * different key.
+	 */
+	public static Checkpoint resume(Path path, String searchKey, long interval, TimeUnit unit) throws IOException {
+		Checkpoint c = new Checkpoint(path, searchKey, interval, unit);
+		if (!Files.exists(path)) return c;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException("not a checkpoint file: "+path);
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("unsupported checkpoint version "+version);
+			String savedKey = in.readUTF();
+			if (!savedKey.equals(searchKey))
+				throw new IllegalStateException(String.format(
+						"checkpoint %s is for a different puzzle, inventory or rules (key %s, not %s)", path, savedKey, searchKey));
+			c.totalTrials = in.readLong();
+			c.begin = in.readLong();
+			c.end = in.readLong();
+			c.unitTrials = in.readLong();
+			c.units = in.readInt();
+			c.solutions = in.readLong();
+			c.outputLength = in.readLong();
+			long[] words = new long[in.readInt()];
+			for (int i = 0; i < words.length; ++i)
+				words[i] = in.readLong();
+			c.completed = BitSet.valueOf(words);
+		}
+		return c;
+	}
+
+	/**
+	 * Binds this checkpoint to the given work-unit division, throwing if it
+	 * was saved by a search with a different one (e.g., a different puzzle).
+	 */
+	void bind(long totalTrials, long begin, long end, long unitTrials, int units) {
+		if (this.totalTrials == -1) {
+			this.totalTrials = totalTrials;
+			this.begin = begin;
+			this.end = end;
+			this.unitTrials = unitTrials;
+			this.units = units;
+		} else if (this.totalTrials != totalTrials || this.begin != begin || this.end != end
+				|| this.unitTrials != unitTrials || this.units != units)
+			throw new IllegalStateException(String.format(
+					"checkpoint %s is for a different search (%d trials [%d, %d) in %d units of %d, not %d trials [%d, %d) in %d units of %d)",
+					path, this.totalTrials, this.begin, this.end, this.units, this.unitTrials,
+					totalTrials, begin, end, units, unitTrials));
+	}
+
+	public long intervalNanos() {
+		return intervalNanos;
+	}
+
+	public boolean isCompleted(int unit) {
+		return completed.get(unit);
+	}
+
+	public int unitsCompleted() {
+		return completed.cardinality();
+	}
+
+	/**
+	 * Returns the number of solutions found in completed units.
+	 */
+	public long solutions() {
+		return solutions;
+	}
+
+	/**
+	 * Returns the committed length of the solution file, or -1 if solutions
+	 * weren't written to a file.
+	 */
+	public long outputLength() {
+		return outputLength;
+	}
+
+	/**
+	 * Atomically replaces the saved checkpoint.
+	 */
+	void save(BitSet completed, long solutions, long outputLength) throws IOException {
+		this.completed = completed;
+		this.solutions = solutions;
+		this.outputLength = outputLength;
+		Path temp = path.resolveSibling(path.getFileName()+".tmp");
+		try (FileOutputStream fos = new FileOutputStream(temp.toFile());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(searchKey);
+			out.writeLong(totalTrials);
+			out.writeLong(begin);
+			out.writeLong(end);
+			out.writeLong(unitTrials);
+			out.writeInt(units);
+			out.writeLong(solutions);
+			out.writeLong(outputLength);
+			long[] words = completed.toLongArray();
+			out.writeInt(words.length);
+			for (long w : words)
+				out.writeLong(w);
+			out.flush();
+			fos.getFD().sync();
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out leases on ranges of a search's trial index space to
+ * {@link Worker}s connecting over TCP, so fast workers take more of the work
+ * than slow ones.  Workers heartbeat while they hold a lease; a lease whose
+ * worker disconnects or goes quiet is handed to another worker.
+ * <p>
+ * Usage: Coordinator puzzle-file device-count --output solutions.bin
+ * [--inventory spec] [--port 7777] [--lease-trials n] [--lease-timeout seconds]
+ * [--stats stats-file]
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class Coordinator {
+	//messages; see serve() and Worker
+	static final byte HELLO = 1, CONFIG = 2, REQUEST = 3, LEASE = 4, WAIT = 5,
+			DONE = 6, HEARTBEAT = 7, RESULT = 8;
+	private static final long WAIT_MILLIS = 500;
+	private final List<String> puzzle;
+	private final String inventory;
+	private final int deviceCount;
+	private final long totalTrials;
+	private final SolutionFile.Writer output;
+	private final long timeoutNanos;
+	private final SearchStatistics stats;
+	//all guarded by this
+	private final ArrayDeque<long[]> pending = new ArrayDeque<>();
+	private final Map<Long, Lease> active = new HashMap<>();
+	private long nextLeaseId;
+	private boolean finished;
+
+	private static final class Lease {
+		final long id, begin, end;
+		final Socket owner;
+		long lastHeard = System.nanoTime();
+		Lease(long id, long begin, long end, Socket owner) {
+			this.id = id;
+			this.begin = begin;
+			this.end = end;
+			this.owner = owner;
+		}
+	}
+
+	private Coordinator(List<String> puzzle, String inventory, int deviceCount, long totalTrials,
+			long leaseTrials, long timeout, TimeUnit unit, SolutionFile.Writer output) {
+		this.puzzle = puzzle;
+		this.inventory = inventory;
+		this.deviceCount = deviceCount;
+		this.totalTrials = totalTrials;
+		this.output = output;
+		this.timeoutNanos = unit.toNanos(timeout);
+		for (long b = 0; b < totalTrials; b += leaseTrials)
+			pending.add(new long[]{b, Math.min(totalTrials, b + leaseTrials)});
+		this.stats = new SearchStatistics(totalTrials, pending.size());
+		this.finished = pending.isEmpty();
+	}
+
+	/**
+	 * Returns a new lease for the given worker, or null if none is available.
+	 */
+	private synchronized Lease lease(Socket worker) {
+		long[] range = pending.poll();
+		if (range == null) return null;
+		Lease l = new Lease(nextLeaseId++, range[0], range[1], worker);
+		active.put(l.id, l);
+		return l;
+	}
+
+	private synchronized void heartbeat(long id, Socket worker) {
+		Lease l = active.get(id);
+		if (l != null && l.owner == worker)
+			l.lastHeard = System.nanoTime();
+	}
+
+	/**
+	 * Records a lease's results, unless the lease was revoked.
+	 */
+	private synchronized void complete(long id, Socket worker, long trials, long solutions, byte[] records) throws IOException {
+		Lease l = active.get(id);
+		if (l == null || l.owner != worker) return; //revoked; someone else has it
+		active.remove(id);
+		output.write(ByteBuffer.wrap(records));
+		stats.trials.add(trials);
+		stats.solutions.add(solutions);
+		stats.unitsCompleted.increment();
+		if (pending.isEmpty() && active.isEmpty()) {
+			finished = true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the given worker's leases to the pending queue.
+	 */
+	private synchronized void revoke(Socket worker) {
+		for (Iterator<Lease> i = active.values().iterator(); i.hasNext();) {
+			Lease l = i.next();
+			if (l.owner == worker) {
+				i.remove();
+				pending.addFirst(new long[]{l.begin, l.end});
+			}
+		}
+	}
+
+	/**
+	 * Revokes leases from workers that haven't heartbeated recently.
+	 */
+	private synchronized void reap() {
+		long now = System.nanoTime();
+		for (Lease l : active.values().toArray(new Lease[0]))
+			if (now - l.lastHeard > timeoutNanos) {
+				System.err.format("lease %d [%d, %d) timed out; revoking%n", l.id, l.begin, l.end);
+				revoke(l.owner);
+				try {
+					l.owner.close();
+				} catch (IOException ignored) {}
+			}
+	}
+
+	private synchronized boolean finished() {
+		return finished;
+	}
+
+	private synchronized void awaitFinished() throws InterruptedException {
+		while (!finished)
+			wait(timeoutNanos / 4_000_000 + 1);
+	}
+
+	private void serve(Socket socket) {
+		try (Socket s = socket;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+			if (in.readByte() != HELLO)
+				throw new IOException("expected HELLO");
+			String name = in.readUTF();
+			System.err.println("worker connected: "+name+" from "+s.getRemoteSocketAddress());
+			out.writeByte(CONFIG);
+			out.writeInt(puzzle.size());
+			for (String line : puzzle)
+				out.writeUTF(line);
+			out.writeUTF(inventory != null ? inventory : "");
+			out.writeInt(deviceCount);
+			out.writeLong(totalTrials);
+			out.writeLong(timeoutNanos / 4);
+			out.flush();
+			while (true) {
+				byte message = in.readByte();
+				switch (message) {
+					case REQUEST:
+						Lease l = lease(s);
+						if (l != null) {
+							out.writeByte(LEASE);
+							out.writeLong(l.id);
+							out.writeLong(l.begin);
+							out.writeLong(l.end);
+						} else if (finished()) {
+							out.writeByte(DONE);
+							out.flush();
+							return;
+						} else {
+							out.writeByte(WAIT);
+							out.writeLong(WAIT_MILLIS);
+						}
+						out.flush();
+						break;
+					case HEARTBEAT:
+						heartbeat(in.readLong(), s);
+						break;
+					case RESULT:
+						long id = in.readLong(), trials = in.readLong(), solutions = in.readLong();
+						byte[] records = new byte[in.readInt()];
+						in.readFully(records);
+						complete(id, s, trials, solutions, records);
+						break;
+					default:
+						throw new IOException("unexpected message "+message);
+				}
+			}
+		} catch (IOException ex) {
+			if (!finished())
+				System.err.println("worker connection failed: "+ex);
+		} finally {
+			revoke(socket);
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Path puzzlePath = Paths.get(args[0]);
+		int deviceCount = Integer.valueOf(args[1]);
+		String inventorySpec = null;
+		Path output = null, statsPath = null;
+		int port = 7777;
+		long leaseTrials = 1 << 22, leaseTimeout = 30;
+		for (int i = 2; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--inventory":
+					inventorySpec = args[++i];
+					break;
+				case "--output":
+					output = Paths.get(args[++i]);
+					break;
+				case "--stats":
+					statsPath = Paths.get(args[++i]);
+					break;
+				case "--port":
+					port = Integer.parseInt(args[++i]);
+					break;
+				case "--lease-trials":
+					leaseTrials = Long.parseLong(args[++i]);
+					break;
+				case "--lease-timeout":
+					leaseTimeout = Long.parseLong(args[++i]);
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option: "+args[i]);
+			}
+		}
+		if (output == null)
+			throw new IllegalArgumentException("--output is required");
+
+		List<String> puzzle = Files.readAllLines(puzzlePath);
+		Inventory inventory = inventorySpec != null ? Inventory.parse(inventorySpec, deviceCount) : Inventory.of(deviceCount);
+		Search search = new Search(Problem.fromLines(puzzle), inventory);
+		System.out.println(search.countTrials()+" states to check");
+		Coordinator c;
+		try (SolutionFile.Writer writer = SolutionFile.create(output, search.rowLengths());
+				ServerSocket server = new ServerSocket(port)) {
+			c = new Coordinator(puzzle, inventorySpec, deviceCount, search.countTrials(),
+					leaseTrials, leaseTimeout, TimeUnit.SECONDS, writer);
+			Thread acceptor = new Thread(() -> {
+				while (!server.isClosed())
+					try {
+						Socket s = server.accept();
+						Thread t = new Thread(() -> c.serve(s), "serve "+s.getRemoteSocketAddress());
+						t.setDaemon(true);
+						t.start();
+					} catch (IOException ex) {
+						if (!server.isClosed())
+							System.err.println("accept failed: "+ex);
+					}
+			}, "acceptor");
+			acceptor.setDaemon(true);
+			acceptor.start();
+			Thread reaper = new Thread(() -> {
+				try {
+					while (!c.finished()) {
+						TimeUnit.NANOSECONDS.sleep(c.timeoutNanos / 4);
+						c.reap();
+					}
+				} catch (InterruptedException ex) {}
+			}, "reaper");
+			reaper.setDaemon(true);
+			reaper.start();
+			c.awaitFinished();
+			//give waiting workers a chance to hear DONE
+			Thread.sleep(2 * WAIT_MILLIS);
+		}
+		c.stats.finish(false);
+		System.out.println(c.stats);
+		if (statsPath != null) {
+			Properties p = c.stats.toProperties();
+			p.setProperty("puzzleTrials", Long.toString(c.totalTrials));
+			SearchStatistics.store(p, statsPath);
+		}
+	}
+}
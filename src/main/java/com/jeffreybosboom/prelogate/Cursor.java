@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A worker's current board as device codes by cell index, and the sum of
+ * their cell hashes, updated a row at a time as the board changes.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class Cursor {
+	/**
+	 * The index in {@link #cellHashes(int)}'s arrays of a cell's hash for a
+	 * wildcard, after those for the device codes.
+	 */
+	static final int WILDCARD_HASH = DeviceList.CODES;
+	private final BoardShape shape;
+	private final long[][] cellHashes;
+	final byte[] codes;
+	long hash;
+	Cursor(BoardShape shape, long[][] cellHashes, List<List<Device>> board) {
+		this.shape = shape;
+		this.cellHashes = cellHashes;
+		this.codes = new byte[shape.cells()];
+		for (long[] h : cellHashes)
+			hash += h[0];
+		for (int r = 0; r < board.size(); ++r)
+			setRow(r, board.get(r));
+	}
+	void setRow(int r, List<Device> row) {
+		for (int c = 0; c < row.size(); ++c) {
+			int i = shape.index(r, c);
+			byte code = DeviceList.code(row.get(c));
+			hash += cellHashes[i][code] - cellHashes[i][codes[i]];
+			codes[i] = code;
+		}
+	}
+
+	/**
+	 * Returns, for each cell, random values to be summed over the cells'
+	 * device codes to hash a board.
+	 */
+	static long[][] cellHashes(int cells) {
+		long[][] cellHashes = new long[cells][WILDCARD_HASH + 1];
+		Random random = new Random(0);
+		for (long[] h : cellHashes)
+			for (int i = 0; i < h.length; ++i)
+				h[i] = random.nextLong();
+		return cellHashes;
+	}
+}
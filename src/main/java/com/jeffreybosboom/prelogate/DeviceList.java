@@ -11,8 +11,12 @@ import java.util.List;
  * @since 8/31/2016
  */
 public final class DeviceList extends AbstractList<Device> {
-	private static final IdentityHashMap<Device, Byte> MAP = new IdentityHashMap<>(32);
-	private static final Device[] TABLE = new Device[32];
+	/**
+	 * The number of device codes; every code is less than this.
+	 */
+	static final int CODES = 32;
+	private static final IdentityHashMap<Device, Byte> MAP = new IdentityHashMap<>(CODES);
+	private static final Device[] TABLE = new Device[CODES];
 	static {
 		byte b = 0;
 		for (BasicDevice d : BasicDevice.values()) {
@@ -25,12 +29,26 @@ public final class DeviceList extends AbstractList<Device> {
 		}
 	}
 
+	public static byte code(Device device) {
+		return MAP.get(device);
+	}
+
+	public static Device device(byte code) {
+		return TABLE[code];
+	}
+
 	private final byte[] data;
 	public DeviceList(List<Device> devices) {
 		this.data = new byte[devices.size()];
 		for (int i = 0; i < data.length; ++i)
 			data[i] = MAP.get(devices.get(i));
 	}
+	/**
+	 * Creates a DeviceList from the given codes (not copied).
+	 */
+	DeviceList(byte[] data) {
+		this.data = data;
+	}
 	@Override
 	public Device get(int index) {
 		return TABLE[data[index]];
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.math.LongMath;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The solution families found by one call to Search.search().  A solution's
+ * family is every board agreeing with it on the cells a beam entered
+ * during its evaluation; the other cells (except those with only one
+ * possible device) are wildcards.  Families are keyed by their codes with
+ * the wildcards blanked out, so a board is a member of a known family if
+ * blanking one of the known wildcard masks gives a known key.
+ *
+ * Checking every mask for every trial costs more than it saves on dense
+ * boards with many small families, so trials are checked only against
+ * the masks with the most members, using the {@link Cursor}'s hash.
+ * Solutions of other families are simulated and then recognized by their
+ * exact key.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class Families {
+	private static final byte WILDCARD = -1;
+	private static final int CONSULTED_MASKS = 8;
+	private final ConcurrentHashMap<ByteBuffer, SolutionFamily> families = new ConcurrentHashMap<>();
+	private final BoardShape shape;
+	private final List<Set<Device>> domains;
+	private final Inventory inventory;
+	private final List<Map<Integer, List<List<Device>>>> materializedRows;
+	private final long[][] cellHashes;
+	/**
+	 * Families of more than one member by the hash of their key, and their
+	 * masks with their total member counts.
+	 */
+	private final ConcurrentHashMap<Long, Known> byHash = new ConcurrentHashMap<>();
+	private final Map<BitSet, Mask> masks = new HashMap<>();
+	private volatile Mask[] consulted = new Mask[0];
+	/**
+	 * Per-usage-key counts of a row's instances matching a pattern, keyed
+	 * by row index and pattern.
+	 */
+	private final ConcurrentHashMap<List<Object>, long[]> rowCounts = new ConcurrentHashMap<>();
+	Families(BoardShape shape, List<Set<Device>> domains, Inventory inventory,
+			List<Map<Integer, List<List<Device>>>> materializedRows, long[][] cellHashes) {
+		this.shape = shape;
+		this.domains = domains;
+		this.inventory = inventory;
+		this.materializedRows = materializedRows;
+		this.cellHashes = cellHashes;
+	}
+
+	/**
+	 * Returns the known family the cursor's board is a member of, or null
+	 * if it isn't a member of a family with a consulted mask.
+	 */
+	SolutionFamily find(Cursor cursor) {
+		for (Mask m : consulted) {
+			long hash = cursor.hash;
+			for (int i : m.cells)
+				hash += m.blank[i] - cellHashes[i][cursor.codes[i]];
+			Known k = byHash.get(hash);
+			if (k != null && k.matches(cursor.codes)) return k.family;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the family of the cursor's board, a solution with the given
+	 * trace, or null if it's already known.
+	 */
+	SolutionFamily add(Cursor cursor, List<List<Device>> solution, Trace trace) {
+		BitSet wildcards = new BitSet(shape.cells());
+		for (int i = 0; i < shape.cells(); ++i)
+			if (!trace.litInAnyRow(i) && domains.get(i).size() > 1)
+				wildcards.set(i);
+		byte[] key = cursor.codes.clone();
+		for (int i = wildcards.nextSetBit(0); i >= 0; i = wildcards.nextSetBit(i+1))
+			key[i] = WILDCARD;
+		if (families.containsKey(ByteBuffer.wrap(key))) return null;
+		int freeRows = 0;
+		while (freeRows < shape.rows() && isFree(shape.rows() - 1 - freeRows, wildcards))
+			++freeRows;
+		SolutionFamily family = new SolutionFamily(Search.copy(solution), shape, wildcards, size(solution, wildcards), freeRows);
+		if (families.putIfAbsent(ByteBuffer.wrap(key), family) != null) return null;
+		if (family.size() > 1) {
+			synchronized (masks) {
+				Mask mask = masks.computeIfAbsent(wildcards, Mask::new);
+				mask.members += family.size();
+				byHash.putIfAbsent(mask.hash(key), new Known(family, key));
+				consulted = masks.values().stream()
+						.sorted(Comparator.comparingLong((Mask m) -> m.members).reversed())
+						.limit(CONSULTED_MASKS)
+						.toArray(Mask[]::new);
+			}
+		}
+		return family;
+	}
+
+	private final class Mask {
+		private final int[] cells;
+		/**
+		 * For each cell, the hash of a wildcard there.
+		 */
+		private final long[] blank;
+		private long members;
+		Mask(BitSet wildcards) {
+			this.cells = wildcards.stream().toArray();
+			this.blank = new long[shape.cells()];
+			for (int i : cells)
+				blank[i] = cellHashes[i][Cursor.WILDCARD_HASH];
+		}
+		long hash(byte[] key) {
+			long hash = 0;
+			for (int i = 0; i < key.length; ++i)
+				hash += key[i] == WILDCARD ? blank[i] : cellHashes[i][key[i]];
+			return hash;
+		}
+	}
+
+	private final class Known {
+		private final SolutionFamily family;
+		private final byte[] key;
+		Known(SolutionFamily family, byte[] key) {
+			this.family = family;
+			this.key = key;
+		}
+		boolean matches(byte[] codes) {
+			for (int i = 0; i < key.length; ++i)
+				if (key[i] != WILDCARD && key[i] != codes[i])
+					return false;
+			return true;
+		}
+	}
+
+	/**
+	 * Returns true if every instance of the given row matches any pattern
+	 * with the given wildcards.
+	 */
+	private boolean isFree(int row, BitSet wildcards) {
+		for (int c = 0; c < shape.rowLength(row); ++c) {
+			int i = shape.index(row, c);
+			if (!wildcards.get(i) && domains.get(i).size() > 1)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the boards agreeing with the given solution outside the given
+	 * wildcards, combining each row's matching instances by usage key as
+	 * {@link Search#computePartitions()} combines the keys themselves.
+	 */
+	private long size(List<List<Device>> solution, BitSet wildcards) {
+		long[] ways = new long[inventory.keySpace()];
+		ways[0] = 1;
+		for (int r = 0; r < shape.rows(); ++r) {
+			long[] counts = rowCounts(r, solution.get(r), wildcards);
+			long[] next = new long[ways.length];
+			for (int a = 0; a < ways.length; ++a) {
+				if (ways[a] == 0) continue;
+				for (int k = 0; k < counts.length; ++k) {
+					if (counts[k] == 0) continue;
+					int sum = inventory.add(a, k);
+					if (sum < 0) continue;
+					next[sum] = LongMath.checkedAdd(next[sum], LongMath.checkedMultiply(ways[a], counts[k]));
+				}
+			}
+			ways = next;
+		}
+		long size = 0;
+		for (int a = 0; a < ways.length; ++a)
+			if (inventory.count(a) == inventory.total())
+				size = LongMath.checkedAdd(size, ways[a]);
+		return size;
+	}
+
+	private long[] rowCounts(int r, List<Device> row, BitSet wildcards) {
+		byte[] pattern = new byte[row.size()];
+		boolean anyWildcards = false;
+		for (int c = 0; c < pattern.length; ++c) {
+			anyWildcards |= wildcards.get(shape.index(r, c));
+			pattern[c] = wildcards.get(shape.index(r, c)) ? WILDCARD : DeviceList.code(row.get(c));
+		}
+		if (!anyWildcards) {
+			//instances are distinct, so only the row itself matches
+			long[] counts = new long[inventory.keySpace()];
+			counts[inventory.keyOf(row)] = 1;
+			return counts;
+		}
+		if (isFree(r, wildcards)) {
+			long[] counts = new long[inventory.keySpace()];
+			for (Map.Entry<Integer, List<List<Device>>> e : materializedRows.get(r).entrySet())
+				counts[e.getKey()] = e.getValue().size();
+			return counts;
+		}
+		return rowCounts.computeIfAbsent(Arrays.asList(r, ByteBuffer.wrap(pattern)), k -> {
+			long[] counts = new long[inventory.keySpace()];
+			for (Map.Entry<Integer, List<List<Device>>> e : materializedRows.get(r).entrySet())
+				for (List<Device> instance : e.getValue())
+					if (matches(instance, pattern)) ++counts[e.getKey()];
+			return counts;
+		});
+	}
+
+	private boolean matches(List<Device> instance, byte[] pattern) {
+		for (int c = 0; c < pattern.length; ++c)
+			if (pattern[c] != WILDCARD && DeviceList.code(instance.get(c)) != pattern[c])
+				return false;
+		return true;
+	}
+}
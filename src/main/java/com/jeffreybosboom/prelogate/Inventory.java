@@ -0,0 +1,182 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The devices a solution may use: an exact total device count plus optional
+ * per-type maximums.  Device usage is packed into a mixed-radix int (one digit
+ * per counted class of device) so it can key a {@link DenseIntegerMap}.
+ * Without per-type limits there is a single class containing every device,
+ * so the key is just the device count.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class Inventory {
+	private final int total;
+	/**
+	 * The digit each BasicDevice (by ordinal) counts toward, -1 for devices
+	 * that don't count (EMPTY and WALL), or -2 for devices not in the inventory.
+	 */
+	private final int[] digitOf;
+	private final int[] limits, weights;
+	private final String spec, canonicalLimits;
+	private Inventory(int total, int[] digitOf, int[] limits, String spec, String canonicalLimits) {
+		if (total < 0)
+			throw new IllegalArgumentException("negative device count: "+total);
+		this.total = total;
+		this.digitOf = digitOf;
+		this.limits = limits;
+		this.weights = new int[limits.length];
+		long weight = 1;
+		for (int i = 0; i < limits.length; ++i) {
+			weights[i] = (int)weight;
+			weight *= limits[i] + 1;
+			if (weight > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("inventory too large: "+spec);
+		}
+		this.spec = spec;
+		this.canonicalLimits = canonicalLimits;
+	}
+
+	/**
+	 * Returns an inventory allowing exactly the given number of devices of
+	 * any types.
+	 */
+	public static Inventory of(int total) {
+		int[] digitOf = new int[BasicDevice.values().length];
+		digitOf[BasicDevice.EMPTY.ordinal()] = digitOf[BasicDevice.WALL.ordinal()] = -1;
+		return new Inventory(total, digitOf, new int[]{total}, Integer.toString(total), "*");
+	}
+
+	/**
+	 * Parses an inventory like "and=2,xor=1,mirror=3", allowing exactly total
+	 * devices drawn from it.  Devices not mentioned may not be used.
+	 */
+	public static Inventory parse(String spec, int total) {
+		int[] digitOf = new int[BasicDevice.values().length];
+		Arrays.fill(digitOf, -2);
+		digitOf[BasicDevice.EMPTY.ordinal()] = digitOf[BasicDevice.WALL.ordinal()] = -1;
+		String[] entries = spec.split(",");
+		int[] limits = new int[entries.length];
+		EnumMap<BasicDevice, Integer> canonical = new EnumMap<>(BasicDevice.class);
+		for (int i = 0; i < entries.length; ++i) {
+			String[] kv = entries[i].trim().split("=");
+			if (kv.length != 2)
+				throw new IllegalArgumentException("bad inventory entry: "+entries[i]);
+			BasicDevice d = BasicDevice.valueOf(kv[0].trim().toUpperCase(Locale.ROOT));
+			if (digitOf[d.ordinal()] != -2)
+				throw new IllegalArgumentException("bad inventory entry: "+entries[i]);
+			int limit = Integer.parseInt(kv[1].trim());
+			if (limit < 0)
+				throw new IllegalArgumentException("bad inventory entry: "+entries[i]);
+			digitOf[d.ordinal()] = i;
+			canonical.put(d, limit);
+			//we can never use more than the total, so don't waste key space
+			limits[i] = Math.min(limit, total);
+		}
+		return new Inventory(total, digitOf, limits, spec+" ("+total+" total)",
+				canonical.entrySet().stream()
+						.map(e -> e.getKey().name().toLowerCase(Locale.ROOT)+"="+e.getValue())
+						.collect(Collectors.joining(",")));
+	}
+
+	/**
+	 * Returns the total number of devices a solution must use.
+	 */
+	public int total() {
+		return total;
+	}
+
+	/**
+	 * Returns the per-type limits in a canonical form ignoring the order and
+	 * case they were given in, or "*" if there are none.
+	 */
+	public String canonicalLimits() {
+		return canonicalLimits;
+	}
+
+	/**
+	 * Returns one more than the largest key this inventory produces.
+	 */
+	public int keySpace() {
+		return weights[weights.length-1] * (limits[limits.length-1] + 1);
+	}
+
+	/**
+	 * Returns the usage key for the given devices, or -1 if they exceed this
+	 * inventory.
+	 */
+	public int keyOf(List<Device> devices) {
+		int[] digits = new int[limits.length];
+		int count = 0;
+		for (Device d : devices) {
+			int digit = digitOf[base(d).ordinal()];
+			if (digit == -1) continue;
+			if (digit == -2) return -1;
+			if (++digits[digit] > limits[digit] || ++count > total) return -1;
+		}
+		int key = 0;
+		for (int i = 0; i < digits.length; ++i)
+			key += digits[i] * weights[i];
+		return key;
+	}
+
+	/**
+	 * Returns the key for the combined usage of the two given keys, or -1 if
+	 * the combination exceeds this inventory.
+	 */
+	public int add(int a, int b) {
+		int key = 0, count = 0;
+		for (int i = limits.length-1; i >= 0; --i) {
+			int digit = a / weights[i] + b / weights[i];
+			a %= weights[i];
+			b %= weights[i];
+			if (digit > limits[i]) return -1;
+			count += digit;
+			key += digit * weights[i];
+		}
+		return count > total ? -1 : key;
+	}
+
+	/**
+	 * Returns the number of devices used by the given key.
+	 */
+	public int count(int key) {
+		int count = 0;
+		for (int i = limits.length-1; i >= 0; --i) {
+			count += key / weights[i];
+			key %= weights[i];
+		}
+		return count;
+	}
+
+	private static BasicDevice base(Device d) {
+		return d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
+	}
+
+	@Override
+	public String toString() {
+		return spec;
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Looks for one solution by simulated annealing, for boards too large to
+ * enumerate.  A board assigns each cell a device from its pruned domain,
+ * always using exactly the inventory's devices; a move replaces one cell's
+ * device, and if that changes the device count, also replaces another
+ * cell's to restore it.  A board's fitness is the number of receiver values,
+ * over all truth table rows, it gets right (0 if it doesn't quiesce), so a
+ * solution has every value right.  Several chains run in parallel,
+ * periodically sharing the best board found; a chain behind the shared best
+ * restarts from it.  Finding nothing within the time budget doesn't mean
+ * there's no solution.
+ * <p>
+ * Usage: LocalSearch puzzle deviceCount [--inventory spec] [--time seconds]
+ * [--chains n] [--exchange steps] [--seed 0]
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class LocalSearch {
+	private static final int MAX_INIT_ATTEMPTS = 10000, MAX_COMPENSATION_ATTEMPTS = 64;
+	private static final double INITIAL_TEMPERATURE = 2, MIN_TEMPERATURE = 0.05, COOLING = 0.999;
+	private final Problem problem;
+	private final Inventory inventory;
+	private final BoardShape shape;
+	/**
+	 * Each cell's possible devices that count toward the inventory, and
+	 * those that don't.
+	 */
+	private final List<List<Device>> counted = new ArrayList<>(), uncounted = new ArrayList<>();
+	/**
+	 * The cells with more than one possible device.
+	 */
+	private final int[] variable;
+	private final int maxFitness;
+	private int chains = Runtime.getRuntime().availableProcessors();
+	private long exchangeInterval = 1 << 10;
+	public LocalSearch(Problem problem, Inventory inventory) {
+		this(problem, inventory, PruningRules.defaults());
+	}
+	public LocalSearch(Problem problem, Inventory inventory, PruningRules pruningRules) {
+		this.problem = problem;
+		this.inventory = inventory;
+		this.shape = problem.shape();
+		List<Integer> variable = new ArrayList<>();
+		List<Set<Device>> domains = Search.prunedDomains(problem, pruningRules);
+		for (int i = 0; i < domains.size(); ++i) {
+			List<Device> c = new ArrayList<>(), u = new ArrayList<>();
+			for (Device d : domains.get(i)) {
+				int key = inventory.keyOf(Collections.singletonList(d));
+				if (key < 0) continue; //not in the inventory
+				(inventory.count(key) > 0 ? c : u).add(d);
+			}
+			if (c.isEmpty() && u.isEmpty())
+				throw new IllegalArgumentException("no device in the inventory fits "+shape.coordinate(i));
+			counted.add(c);
+			uncounted.add(u);
+			if (c.size() + u.size() > 1)
+				variable.add(i);
+		}
+		this.variable = variable.stream().mapToInt(Integer::intValue).toArray();
+		int receivers = (int)problem.terminals().stream().filter(Terminal::isReceiver).count();
+		this.maxFitness = receivers * problem.terminals().get(0).values().size();
+	}
+
+	/**
+	 * Sets the number of chains run in parallel, by default the number of
+	 * processors.
+	 */
+	public LocalSearch chains(int chains) {
+		if (chains < 1)
+			throw new IllegalArgumentException("bad chain count: "+chains);
+		this.chains = chains;
+		return this;
+	}
+
+	/**
+	 * Sets how many steps each chain takes between exchanges of the best
+	 * board.
+	 */
+	public LocalSearch exchangeInterval(long steps) {
+		if (steps < 1)
+			throw new IllegalArgumentException("bad exchange interval: "+steps);
+		this.exchangeInterval = steps;
+		return this;
+	}
+
+	/**
+	 * The outcome of a call to {@link #solve(long, TimeUnit, long)}.
+	 */
+	public static final class Result {
+		private final ImmutableList<ImmutableList<Device>> best;
+		private final int bestFitness, maxFitness;
+		private final long steps, elapsedNanos;
+		private Result(ImmutableList<ImmutableList<Device>> best, int bestFitness, int maxFitness, long steps, long elapsedNanos) {
+			this.best = best;
+			this.bestFitness = bestFitness;
+			this.maxFitness = maxFitness;
+			this.steps = steps;
+			this.elapsedNanos = elapsedNanos;
+		}
+		/**
+		 * Returns the solution found, or null if none was.
+		 */
+		public ImmutableList<ImmutableList<Device>> solution() {
+			return solved() ? best : null;
+		}
+		public boolean solved() {
+			return bestFitness == maxFitness;
+		}
+		/**
+		 * Returns the fittest board found, which is a solution if any was
+		 * found.
+		 */
+		public ImmutableList<ImmutableList<Device>> best() {
+			return best;
+		}
+		public int bestFitness() {
+			return bestFitness;
+		}
+		public int maxFitness() {
+			return maxFitness;
+		}
+		public long steps() {
+			return steps;
+		}
+		public long elapsedNanos() {
+			return elapsedNanos;
+		}
+		@Override
+		public String toString() {
+			return String.format("%s after %d steps in %.3fs, best board matches %d/%d receiver values",
+					solved() ? "solved" : "not solved", steps, elapsedNanos / 1e9, bestFitness, maxFitness);
+		}
+	}
+
+	/**
+	 * Runs the chains until one finds a solution or the time budget runs
+	 * out.  Each chain's random choices are seeded from the given seed, but
+	 * chains interact through exchanges, so runs aren't reproducible.
+	 */
+	public Result solve(long budget, TimeUnit unit, long seed) {
+		long start = System.nanoTime(), deadline = start + unit.toNanos(budget);
+		Shared shared = new Shared();
+		LongAdder steps = new LongAdder();
+		List<Thread> threads = new ArrayList<>(chains);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		for (int c = 0; c < chains; ++c) {
+			Chain chain = new Chain(new Random(seed + c), shared, steps, deadline);
+			Thread thread = new Thread(chain, "local-search-"+c);
+			thread.setUncaughtExceptionHandler((t, ex) -> {
+				failure.compareAndSet(null, ex);
+				shared.stop = true;
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread t : threads)
+			try {
+				t.join();
+			} catch (InterruptedException ex) {
+				shared.stop = true;
+				Thread.currentThread().interrupt();
+				break;
+			}
+		if (failure.get() != null)
+			throw new IllegalStateException(failure.get());
+		long elapsed = System.nanoTime() - start;
+		synchronized (shared) {
+			return new Result(shared.best != null ? grid(shared.best) : null, shared.bestFitness, maxFitness, steps.sum(), elapsed);
+		}
+	}
+
+	/**
+	 * The best board found by any chain.
+	 */
+	private static final class Shared {
+		Device[] best;
+		int bestFitness = -1;
+		volatile boolean stop;
+	}
+
+	private final class Chain implements Runnable {
+		private final Random random;
+		private final Shared shared;
+		private final LongAdder steps;
+		private final long deadline;
+		private Device[] board, best;
+		private int fitness, bestFitness;
+		private double temperature = INITIAL_TEMPERATURE;
+		Chain(Random random, Shared shared, LongAdder steps, long deadline) {
+			this.random = random;
+			this.shared = shared;
+			this.steps = steps;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public void run() {
+			board = randomBoard(random);
+			fitness = fitness(board);
+			best = board.clone();
+			bestFitness = fitness;
+			long step = 0;
+			//cells changed by the current move, and their previous devices
+			int[] cells = new int[2];
+			Device[] previous = new Device[2];
+			while (fitness < maxFitness && !shared.stop && System.nanoTime() < deadline) {
+				if (++step % exchangeInterval == 0) {
+					exchange();
+					steps.add(exchangeInterval);
+				}
+				int changed = move(board, cells, previous, random);
+				if (changed == 0) continue;
+				int proposed = fitness(board);
+				if (proposed >= fitness || random.nextDouble() < Math.exp((proposed - fitness) / temperature)) {
+					fitness = proposed;
+					if (fitness > bestFitness) {
+						best = board.clone();
+						bestFitness = fitness;
+					}
+				} else
+					for (int i = changed - 1; i >= 0; --i)
+						board[cells[i]] = previous[i];
+				temperature = Math.max(temperature * COOLING, MIN_TEMPERATURE);
+			}
+			steps.add(step % exchangeInterval);
+			exchange();
+			if (fitness == maxFitness)
+				shared.stop = true;
+		}
+
+		/**
+		 * Publishes this chain's best board if it's the best so far, or
+		 * restarts from the shared best (reheating) if this chain is behind it.
+		 */
+		private void exchange() {
+			synchronized (shared) {
+				if (bestFitness > shared.bestFitness) {
+					shared.best = best.clone();
+					shared.bestFitness = bestFitness;
+				} else if (shared.bestFitness > fitness && fitness < maxFitness) {
+					board = shared.best.clone();
+					fitness = shared.bestFitness;
+					temperature = INITIAL_TEMPERATURE;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a random board using exactly the inventory's devices.
+	 */
+	private Device[] randomBoard(Random random) {
+		Device[] board = new Device[shape.cells()];
+		for (int attempt = 0; attempt < MAX_INIT_ATTEMPTS; ++attempt) {
+			//cells that must hold a counted device come first
+			List<Integer> cells = new ArrayList<>();
+			for (int i = 0; i < board.length; ++i)
+				if (!counted.get(i).isEmpty())
+					cells.add(i);
+			Collections.shuffle(cells, random);
+			cells.sort((a, b) -> Boolean.compare(!uncounted.get(a).isEmpty(), !uncounted.get(b).isEmpty()));
+			Arrays.fill(board, null);
+			for (int i = 0; i < inventory.total() && i < cells.size(); ++i)
+				board[cells.get(i)] = pick(counted.get(cells.get(i)), random);
+			for (int i = 0; i < board.length; ++i)
+				if (board[i] == null)
+					board[i] = uncounted.get(i).isEmpty() ? pick(counted.get(i), random) : pick(uncounted.get(i), random);
+			if (fits(board))
+				return board;
+		}
+		throw new IllegalArgumentException("no random board fits the inventory "+inventory);
+	}
+
+	/**
+	 * Makes a random move on the given board, recording the changed cells
+	 * and their previous devices, and returns the number of changed cells
+	 * (0 if the move was abandoned, leaving the board unchanged).
+	 */
+	private int move(Device[] board, int[] cells, Device[] previous, Random random) {
+		if (variable.length == 0) return 0;
+		int cell = variable[random.nextInt(variable.length)];
+		List<Device> c = counted.get(cell), u = uncounted.get(cell);
+		int choice = random.nextInt(c.size() + u.size());
+		Device replacement = choice < c.size() ? c.get(choice) : u.get(choice - c.size());
+		if (replacement.equals(board[cell])) return 0;
+		boolean wasCounted = c.contains(board[cell]), isCounted = choice < c.size();
+		cells[0] = cell;
+		previous[0] = board[cell];
+		board[cell] = replacement;
+		int changed = 1;
+		if (wasCounted != isCounted) {
+			//restore the device count by flipping another cell the other way
+			changed = 0;
+			for (int attempt = 0; attempt < MAX_COMPENSATION_ATTEMPTS; ++attempt) {
+				int other = variable[random.nextInt(variable.length)];
+				if (other == cell) continue;
+				List<Device> from = isCounted ? counted.get(other) : uncounted.get(other),
+						to = isCounted ? uncounted.get(other) : counted.get(other);
+				if (to.isEmpty() || !from.contains(board[other])) continue;
+				cells[1] = other;
+				previous[1] = board[other];
+				board[other] = pick(to, random);
+				changed = 2;
+				break;
+			}
+			if (changed == 0) {
+				board[cell] = previous[0];
+				return 0;
+			}
+		}
+		if (!fits(board)) {
+			for (int i = changed - 1; i >= 0; --i)
+				board[cells[i]] = previous[i];
+			return 0;
+		}
+		return changed;
+	}
+
+	private boolean fits(Device[] board) {
+		int key = inventory.keyOf(Arrays.asList(board));
+		return key >= 0 && inventory.count(key) == inventory.total();
+	}
+
+	private int fitness(Device[] board) {
+		boolean[][] values = Search.receiverValues(problem, Collections.unmodifiableList(grid(board)));
+		if (values == null) return 0; //did not quiesce
+		int fitness = 0;
+		int r = 0;
+		for (Terminal t : problem.terminals()) {
+			if (!t.isReceiver()) continue;
+			for (int ttr = 0; ttr < values.length; ++ttr)
+				if (values[ttr][r] == t.values().get(ttr))
+					++fitness;
+			++r;
+		}
+		return fitness;
+	}
+
+	private ImmutableList<ImmutableList<Device>> grid(Device[] board) {
+		ImmutableList.Builder<ImmutableList<Device>> builder = ImmutableList.builder();
+		for (int r = 0; r < shape.rows(); ++r)
+			builder.add(ImmutableList.copyOf(Arrays.asList(board).subList(shape.rowStart(r), shape.rowStart(r) + shape.rowLength(r))));
+		return builder.build();
+	}
+
+	private static Device pick(List<Device> devices, Random random) {
+		return devices.get(random.nextInt(devices.size()));
+	}
+
+	public static void main(String[] args) throws IOException {
+		Problem problem = Problem.fromFile(Paths.get(args[0]));
+		int deviceCount = Integer.valueOf(args[1]);
+		Inventory inventory = Inventory.of(deviceCount);
+		long seconds = 60, seed = 0;
+		Integer chains = null;
+		Long exchange = null;
+		for (int i = 2; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--inventory":
+					inventory = Inventory.parse(args[++i], deviceCount);
+					break;
+				case "--time":
+					seconds = Long.parseLong(args[++i]);
+					break;
+				case "--chains":
+					chains = Integer.parseInt(args[++i]);
+					break;
+				case "--exchange":
+					exchange = Long.parseLong(args[++i]);
+					break;
+				case "--seed":
+					seed = Long.parseLong(args[++i]);
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option: "+args[i]);
+			}
+		}
+		LocalSearch search = new LocalSearch(problem, inventory);
+		if (chains != null) search.chains(chains);
+		if (exchange != null) search.exchangeInterval(exchange);
+		Result result = search.solve(seconds, TimeUnit.SECONDS, seed);
+		if (result.solved())
+			System.out.println(result.solution());
+		System.err.println(result);
+	}
+}
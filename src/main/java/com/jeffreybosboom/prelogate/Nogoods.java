@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Nogoods learned from the candidates rejected in one call to
+ * Search.search(): the devices in the cells lit by the truth table row that
+ * rejected a candidate.  Any board with those devices in those cells
+ * simulates that row identically, so it's rejected too.
+ *
+ * The index is bounded: once it holds CAPACITY nogoods it stops growing,
+ * and later nogoods are used only by the worker learning them, to skip
+ * the rows after the last row they involve.  As with {@link Families},
+ * boards are checked only against the masks (sets of cells) shared by
+ * the most nogoods, reranked every RANK_INTERVAL additions.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class Nogoods {
+	private static final int CAPACITY = 1 << 16, CONSULTED_MASKS = 8, RANK_INTERVAL = 1 << 8;
+	private final BoardShape shape;
+	private final List<Set<Device>> domains;
+	private final long[][] cellHashes;
+	private final ConcurrentHashMap<Long, Nogood> byHash = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<BitSet, CellMask> masks = new ConcurrentHashMap<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private volatile CellMask[] consulted = new CellMask[0];
+	Nogoods(BoardShape shape, List<Set<Device>> domains, long[][] cellHashes) {
+		this.shape = shape;
+		this.domains = domains;
+		this.cellHashes = cellHashes;
+	}
+
+	/**
+	 * Returns the number of trailing rows not involved in a known nogood
+	 * the cursor's board contains, or -1 if it contains none with a
+	 * consulted mask.
+	 */
+	int find(Cursor cursor) {
+		for (CellMask m : consulted) {
+			Nogood n = byHash.get(m.hash(cursor.codes));
+			if (n != null && n.mask == m && m.matches(n.codes, cursor.codes))
+				return m.freeRows;
+		}
+		return -1;
+	}
+
+	/**
+	 * Learns a nogood from the cursor's board, rejected with the given
+	 * trace, returning the number of trailing rows it doesn't involve.
+	 */
+	int learn(Cursor cursor, Trace trace) {
+		BitSet cells = new BitSet(shape.cells());
+		for (int i = 0; i < shape.cells(); ++i)
+			if (trace.litInRejectedRow(i) && domains.get(i).size() > 1)
+				cells.set(i);
+		CellMask mask = masks.get(cells);
+		if (mask == null) {
+			if (size.get() >= CAPACITY)
+				return new CellMask(cells, shape, cellHashes).freeRows;
+			mask = masks.computeIfAbsent(cells, c -> new CellMask(c, shape, cellHashes));
+		}
+		if (size.get() < CAPACITY && byHash.putIfAbsent(mask.hash(cursor.codes), new Nogood(mask, cursor.codes)) == null) {
+			mask.uses.increment();
+			if (size.incrementAndGet() % RANK_INTERVAL == 0)
+				consulted = CellMask.mostUsed(masks.values(), CONSULTED_MASKS);
+		}
+		return mask.freeRows;
+	}
+
+	private final class Nogood {
+		private final CellMask mask;
+		private final byte[] codes;
+		Nogood(CellMask mask, byte[] codes) {
+			this.mask = mask;
+			this.codes = mask.project(codes);
+		}
+	}
+}
@@ -35,16 +35,28 @@ import java.util.Set;
  * @since 6/27/2015
  */
 public final class Problem {
-	private final Map<Coordinate, Set<Device>> devices;
+	private final BoardShape shape;
+	private final List<Set<Device>> domains;
 	private final List<Terminal> terminals;
 
-	public Problem(Map<Coordinate, Set<Device>> devices, List<Terminal> terminals) {
-		this.devices = devices;
+	public Problem(BoardShape shape, List<Set<Device>> domains, List<Terminal> terminals) {
+		if (domains.size() != shape.cells())
+			throw new IllegalArgumentException(domains.size()+" domains for "+shape.cells()+" cells");
+		this.shape = shape;
+		this.domains = domains;
 		this.terminals = terminals;
 	}
 
-	public Map<Coordinate, Set<Device>> devices() {
-		return devices;
+	public BoardShape shape() {
+		return shape;
+	}
+
+	/**
+	 * Returns the devices each cell may hold, indexed by {@link BoardShape}
+	 * cell index.
+	 */
+	public List<Set<Device>> domains() {
+		return domains;
 	}
 
 	public List<Terminal> terminals() {
@@ -52,7 +64,14 @@ public final class Problem {
 	}
 
 	public static Problem fromFile(Path path) throws IOException {
-		List<String> lines = Files.readAllLines(path);
+		return fromLines(Files.readAllLines(path));
+	}
+
+	/**
+	 * Parses a problem from the lines of a problem file.
+	 */
+	public static Problem fromLines(List<String> fileLines) {
+		List<String> lines = new ArrayList<>(fileLines);
 		Map<Character, Set<Device>> deviceMap = new HashMap<>();
 		Map<Character, Direction> emitterDir = new HashMap<>(), receiverDir = new HashMap<>();
 		for (String line = lines.get(0); !line.isEmpty(); lines.remove(0), line = lines.get(0)) {
@@ -72,18 +91,20 @@ public final class Problem {
 		}
 		lines.remove(0);
 
-		Map<Coordinate, Set<Device>> playfield = new HashMap<>();
-		Map<Character, Integer> rowcols = new HashMap<>();
-		int row = 0;
-		for (String line = lines.get(0); !line.isEmpty(); lines.remove(0), line = lines.get(0), ++row) {
+		List<String> board = new ArrayList<>();
+		for (String line = lines.get(0); !line.isEmpty(); lines.remove(0), line = lines.get(0))
+			board.add(line);
+		lines.remove(0);
+		BoardShape shape = new BoardShape(board.stream().mapToInt(String::length).toArray());
+		List<Set<Device>> playfield = new ArrayList<>(shape.cells());
+		Map<Character, Integer> indices = new HashMap<>();
+		for (String line : board)
 			for (int col = 0; col < line.length(); ++col) {
 				char c = line.charAt(col);
-				playfield.put(Coordinate.at(row, col), deviceMap.get(c));
 				if (emitterDir.containsKey(c) || receiverDir.containsKey(c))
-					rowcols.put(c, (row << 16) | col);
+					indices.put(c, playfield.size());
+				playfield.add(deviceMap.get(c));
 			}
-		}
-		lines.remove(0);
 
 		//truth table can contain a space to separate emitters and receivers
 		//but we can just ignore the space
@@ -99,21 +120,24 @@ public final class Problem {
 		List<Terminal> terminals = new ArrayList<>(truthTableHeader.length());
 		for (int i = 0; i < truthTableHeader.length(); ++i) {
 			char c = truthTableHeader.charAt(i);
-			terminals.add(new Terminal(emitterDir.containsKey(c), rowcols.get(c),
+			int index = indices.get(c);
+			terminals.add(new Terminal(emitterDir.containsKey(c), index, shape.row(index), shape.col(index),
 					emitterDir.containsKey(c) ? emitterDir.get(c) : receiverDir.get(c), values.get(c)));
 		}
 
-		return new Problem(playfield, terminals);
+		return new Problem(shape, playfield, terminals);
 	}
 
 	public static final class Terminal {
 		private final boolean isEmitter;
-		private final int rowcol;
+		private final int index, row, col;
 		private final Direction dir;
 		private final List<Boolean> values;
-		private Terminal(boolean isEmitter, int rowcol, Direction dir, List<Boolean> values) {
+		private Terminal(boolean isEmitter, int index, int row, int col, Direction dir, List<Boolean> values) {
 			this.isEmitter = isEmitter;
-			this.rowcol = rowcol;
+			this.index = index;
+			this.row = row;
+			this.col = col;
 			this.dir = dir;
 			this.values = values;
 		}
@@ -123,11 +147,17 @@ public final class Problem {
 		public boolean isReceiver() {
 			return !isEmitter();
 		}
+		/**
+		 * Returns this terminal's {@link BoardShape} cell index.
+		 */
+		public int index() {
+			return index;
+		}
 		public int row() {
-			return rowcol >>> 16;
+			return row;
 		}
 		public int col() {
-			return rowcol & ((1 << 16) - 1);
+			return col;
 		}
 		public Coordinate coord() {
 			return Coordinate.at(row(), col());
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs a puzzle's full search under several sets of {@link PruningRules}
+ * and compares them: construction and search time, trials, solutions, and
+ * how many solutions each set finds that the first doesn't (or vice versa),
+ * followed by each rule's counts.  A rule pays for itself if removing it
+ * costs more search time than the rule itself takes.  Some rules
+ * deliberately discard solutions containing useless devices, so differing
+ * solution counts aren't necessarily bugs, but a rule discarding a solution
+ * that uses every device is.
+ * <p>
+ * Without --rules, compares the default rules to the default rules less
+ * each one in turn.  Times are the minimum over --repeat runs.
+ * <p>
+ * Usage: PruningComparison puzzle deviceCount [--inventory spec]
+ * [--rules spec]... [--repeat n]
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class PruningComparison {
+	private PruningComparison() {}
+
+	private static final class Result {
+		final PruningRules rules;
+		long constructNanos = Long.MAX_VALUE, searchNanos = Long.MAX_VALUE, trials, solutions;
+		Set<HashCode> solutionSet;
+		List<String> report;
+		Result(PruningRules rules) {
+			this.rules = rules;
+		}
+	}
+
+	private static void run(Problem problem, Inventory inventory, Result result) throws IOException {
+		Set<HashCode> solutions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+		long start = System.nanoTime();
+		Search search = new Search(problem, inventory, null, result.rules);
+		long constructed = System.nanoTime();
+		SearchStatistics stats = search.search(0, search.countTrials(), Long.MAX_VALUE, batch -> {
+			for (List<ImmutableList<Device>> s : batch)
+				solutions.add(Hashing.murmur3_128().hashString(s.toString(), StandardCharsets.UTF_8));
+		}, null);
+		long searched = System.nanoTime();
+		result.constructNanos = Math.min(result.constructNanos, constructed - start);
+		result.searchNanos = Math.min(result.searchNanos, searched - constructed);
+		result.trials = stats.trials();
+		result.solutions = stats.solutions();
+		result.solutionSet = solutions;
+		result.report = search.pruningReport();
+	}
+
+	private static long count(Set<HashCode> set, Set<HashCode> notIn) {
+		return set.stream().filter(h -> !notIn.contains(h)).count();
+	}
+
+	public static void main(String[] args) throws IOException {
+		Problem problem = Problem.fromFile(Paths.get(args[0]));
+		int deviceCount = Integer.valueOf(args[1]);
+		Inventory inventory = Inventory.of(deviceCount);
+		List<PruningRules> ruleSets = new ArrayList<>();
+		int repeat = 1;
+		for (int i = 2; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--inventory":
+					inventory = Inventory.parse(args[++i], deviceCount);
+					break;
+				case "--rules":
+					ruleSets.add(PruningRules.parse(args[++i]));
+					break;
+				case "--repeat":
+					repeat = Integer.parseInt(args[++i]);
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option: "+args[i]);
+			}
+		}
+		if (ruleSets.isEmpty()) {
+			ruleSets.add(PruningRules.defaults());
+			for (String rule : PruningRules.defaults().names())
+				ruleSets.add(PruningRules.parse("default,-"+rule));
+		}
+
+		List<Result> results = new ArrayList<>();
+		for (PruningRules rules : ruleSets) {
+			Result result = new Result(rules);
+			for (int r = 0; r < repeat; ++r)
+				run(problem, inventory, result);
+			results.add(result);
+		}
+
+		Result baseline = results.get(0);
+		System.out.format("%-12s %-12s %-14s %-12s %-10s %-10s %s%n",
+				"construct", "search", "trials", "solutions", "missing", "extra", "rules");
+		for (Result r : results) {
+			System.out.format("%-12.3f %-12.3f %-14d %-12d %-10d %-10d %s%n",
+					r.constructNanos / 1e9, r.searchNanos / 1e9, r.trials, r.solutions,
+					count(baseline.solutionSet, r.solutionSet), count(r.solutionSet, baseline.solutionSet), r.rules);
+			for (String line : r.report)
+				System.out.println("\t"+line);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A way of discarding devices, row instances or whole boards that can't be
+ * part of a solution.  {@link DomainRule Domain rules} remove devices from
+ * cells once, when a Search is constructed; {@link RowRule row rules} reject
+ * row instances during materialization; {@link CandidateRule candidate rules}
+ * reject boards before they're simulated.
+ * Rules are selected per run by name (see {@link PruningRules}).
+ * <p>
+ * Each rule counts what it examined and removed and estimates the time it
+ * spent, so rules that don't pay for themselves can be found.  Row and
+ * candidate rules are tried in order and the first rejection wins, so a rule
+ * is credited only with rejections no earlier rule made.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+abstract class PruningRule {
+	enum Level {DOMAIN, ROW, CANDIDATE}
+
+	/**
+	 * The puzzle a rule is pruning for.
+	 */
+	static final class Context {
+		final BoardShape shape;
+		final ImmutableList<Terminal> emitters, receivers;
+		final int truthTableRows;
+		private final Terminal[] terminalAt;
+		Context(BoardShape shape, ImmutableList<Terminal> emitters, ImmutableList<Terminal> receivers, int truthTableRows) {
+			this.shape = shape;
+			this.emitters = emitters;
+			this.receivers = receivers;
+			this.truthTableRows = truthTableRows;
+			this.terminalAt = new Terminal[shape.cells()];
+			for (Terminal t : emitters)
+				terminalAt[t.index()] = t;
+			for (Terminal t : receivers)
+				terminalAt[t.index()] = t;
+		}
+		/**
+		 * Returns the terminal in the given cell, or null.
+		 */
+		Terminal terminalAt(int index) {
+			return terminalAt[index];
+		}
+	}
+
+	private final String name;
+	private final Level level;
+	private final LongAdder examined = new LongAdder(), removed = new LongAdder(), nanos = new LongAdder(),
+			samples = new LongAdder(), sampledNanos = new LongAdder();
+	//only the level subtypes below extend this directly
+	private PruningRule(String name, Level level) {
+		this.name = name;
+		this.level = level;
+	}
+
+	String name() {
+		return name;
+	}
+
+	Level level() {
+		return level;
+	}
+
+	/**
+	 * Returns the number of devices (for domain rules), row instances or
+	 * candidates this rule has examined.
+	 */
+	long examined() {
+		return examined.sum();
+	}
+
+	long removed() {
+		return removed.sum();
+	}
+
+	/**
+	 * Returns the time this rule has spent, in nanoseconds.  Row and candidate
+	 * rules time only a sample of their tests, scaled to all of them, so this
+	 * is an estimate.
+	 */
+	long nanos() {
+		long samples = this.samples.sum();
+		return nanos.sum() + (samples > 0 ? (long)((double)sampledNanos.sum() / samples * examined()) : 0);
+	}
+
+	/**
+	 * Adds a domain rule's counts.
+	 */
+	private void record(long examined, long removed, long nanos) {
+		this.examined.add(examined);
+		this.removed.add(removed);
+		this.nanos.add(nanos);
+	}
+
+	/**
+	 * A rule removing devices from cells' domains.
+	 */
+	abstract static class DomainRule extends PruningRule {
+		DomainRule(String name) {
+			super(name, Level.DOMAIN);
+		}
+
+		/**
+		 * Removes devices from the given (mutable) domains, indexed by
+		 * {@link BoardShape} cell index.
+		 */
+		abstract void pruneDomains(List<Set<Device>> domains);
+
+		/**
+		 * Applies this rule to the given domains.
+		 */
+		final void prune(List<Set<Device>> domains) {
+			int before = domains.stream().mapToInt(Set::size).sum();
+			long start = System.nanoTime();
+			pruneDomains(domains);
+			long nanos = System.nanoTime() - start;
+			super.record(before, before - domains.stream().mapToInt(Set::size).sum(), nanos);
+		}
+	}
+
+	/**
+	 * A rule rejecting row instances.
+	 */
+	abstract static class RowRule extends PruningRule {
+		RowRule(String name) {
+			super(name, Level.ROW);
+		}
+
+		/**
+		 * Returns a predicate accepting the instances of a row to be rejected.
+		 * @param terminals for each column of the row, the direction the
+		 * terminal there faces, or null if there's no terminal there
+		 */
+		abstract Predicate<List<Device>> rowFilter(List<Direction> terminals);
+
+		/**
+		 * Returns this rule's check for the given row.
+		 */
+		final Check<List<Device>> rowCheck(List<Direction> terminals) {
+			return new Check<>(rowFilter(terminals));
+		}
+	}
+
+	/**
+	 * A rule rejecting candidates before they're simulated.
+	 */
+	abstract static class CandidateRule extends PruningRule {
+		CandidateRule(String name) {
+			super(name, Level.CANDIDATE);
+		}
+
+		/**
+		 * Returns a predicate accepting the candidates to be rejected, for use
+		 * by one thread.
+		 */
+		abstract Predicate<List<List<Device>>> candidateFilter(int[] rowLengths);
+
+		/**
+		 * Returns this rule's check for use by one thread.
+		 */
+		final Check<List<List<Device>>> candidateCheck(int[] rowLengths) {
+			return new Check<>(candidateFilter(rowLengths));
+		}
+	}
+
+	/**
+	 * A rule's filter for one thread, counting locally until flushed.  Only
+	 * every {@link #SAMPLE_INTERVAL}th test is timed, as reading the clock can
+	 * cost more than a cheap filter.  Sampling starts at a random offset after
+	 * the first interval, so a check's cold first tests aren't sampled.
+	 */
+	final class Check<T> implements Predicate<T> {
+		private static final int SAMPLE_INTERVAL = 256;
+		private final Predicate<T> filter;
+		private long examined, removed, samples, sampledNanos;
+		private int untilSample = SAMPLE_INTERVAL + ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL);
+		private Check(Predicate<T> filter) {
+			this.filter = filter;
+		}
+		@Override
+		public boolean test(T t) {
+			boolean reject;
+			if (--untilSample == 0) {
+				long start = System.nanoTime();
+				reject = filter.test(t);
+				sampledNanos += System.nanoTime() - start;
+				++samples;
+				untilSample = SAMPLE_INTERVAL;
+			} else
+				reject = filter.test(t);
+			++examined;
+			if (reject) ++removed;
+			return reject;
+		}
+		void flush() {
+			PruningRule.this.examined.add(examined);
+			PruningRule.this.removed.add(removed);
+			PruningRule.this.samples.add(samples);
+			PruningRule.this.sampledNanos.add(sampledNanos);
+			examined = removed = samples = sampledNanos = 0;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s (%s): %d/%d removed, %.3fs", name, level.name().toLowerCase(Locale.ROOT),
+				removed(), examined(), nanos() / 1e9);
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableSet;
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A selection of {@link PruningRule pruning rules} by name, parsed from specs
+ * like "default,-reachability,gates-opposed-outputs": "default" adds the
+ * default rules, "none" adds nothing, a name adds that rule and "-name"
+ * removes it.  Rules always run in the order listed below, whatever order
+ * the spec gives them in, so trial numbering depends only on which rules are
+ * selected.
+ * <ul>
+ * <li>all-outputs-face-walls (domain): devices whose outputs can only hit
+ * walls</li>
+ * <li>no-input-from-emitter (domain): devices next to an emitter that must
+ * carry its beam but have no input facing it</li>
+ * <li>no-output-to-receiver (domain): devices next to a receiver that is
+ * sometimes lit but have no output facing it</li>
+ * <li>gates-facing-outputs (row): gates outputting into each other</li>
+ * <li>gates-opposed-outputs (row, not default): adjacent gates with opposite
+ * output directions, which also rejects vertical gates pointing apart</li>
+ * <li>useless-splitter-diffuser (row): a splitter or diffuser between devices
+ * (or walls) that neither feed it nor read from it</li>
+ * <li>reachability (candidate, not default): see {@link Reachability}</li>
+ * </ul>
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class PruningRules {
+	private static final Map<String, BiFunction<String, PruningRule.Context, PruningRule>> RULES = new LinkedHashMap<>();
+	private static final Set<String> DEFAULTS = new LinkedHashSet<>();
+	static {
+		register("all-outputs-face-walls", true, AllOutputsFaceWalls::new);
+		register("no-input-from-emitter", true, NoInputFromEmitter::new);
+		register("no-output-to-receiver", true, NoOutputToReceiver::new);
+		register("gates-facing-outputs", true, GatesFacingOutputs::new);
+		register("gates-opposed-outputs", false, GatesOpposedOutputs::new);
+		register("useless-splitter-diffuser", true, UselessSplitterDiffuser::new);
+		//costs more than it saves on the sample puzzles
+		register("reachability", false, ReachabilityRule::new);
+	}
+	private static void register(String name, boolean isDefault, BiFunction<String, PruningRule.Context, PruningRule> factory) {
+		RULES.put(name, factory);
+		if (isDefault) DEFAULTS.add(name);
+	}
+
+	private final Set<String> names;
+	private PruningRules(Set<String> names) {
+		//canonical order
+		this.names = ImmutableSet.copyOf(RULES.keySet().stream().filter(names::contains).iterator());
+	}
+
+	public static PruningRules defaults() {
+		return new PruningRules(DEFAULTS);
+	}
+
+	public static PruningRules none() {
+		return new PruningRules(Collections.emptySet());
+	}
+
+	public static PruningRules parse(String spec) {
+		Set<String> names = new LinkedHashSet<>();
+		for (String item : spec.split(",")) {
+			item = item.trim();
+			if (item.equals("default"))
+				names.addAll(DEFAULTS);
+			else if (item.equals("none") || item.isEmpty())
+				continue;
+			else if (item.startsWith("-"))
+				names.remove(checkName(item.substring(1)));
+			else
+				names.add(checkName(item));
+		}
+		return new PruningRules(names);
+	}
+
+	private static String checkName(String name) {
+		if (!RULES.containsKey(name))
+			throw new IllegalArgumentException("unknown pruning rule: "+name+"; known rules are "+RULES.keySet());
+		return name;
+	}
+
+	/**
+	 * Returns the names of these rules, in the order they run.
+	 */
+	public Set<String> names() {
+		return names;
+	}
+
+	public boolean isDefault() {
+		return names.equals(DEFAULTS);
+	}
+
+	/**
+	 * Creates fresh (zero-count) instances of these rules for the given
+	 * puzzle.
+	 */
+	List<PruningRule> create(PruningRule.Context context) {
+		List<PruningRule> rules = new ArrayList<>(names.size());
+		for (String name : names)
+			rules.add(RULES.get(name).apply(name, context));
+		return rules;
+	}
+
+	/**
+	 * Returns the canonical spec for these rules.
+	 */
+	@Override
+	public String toString() {
+		return names.isEmpty() ? "none" : String.join(",", names);
+	}
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof PruningRules && names.equals(((PruningRules)obj).names);
+	}
+	@Override
+	public int hashCode() {
+		return names.hashCode();
+	}
+
+	private static final class AllOutputsFaceWalls extends PruningRule.DomainRule {
+		private final PruningRule.Context context;
+		AllOutputsFaceWalls(String name, PruningRule.Context context) {
+			super(name);
+			this.context = context;
+		}
+		@Override
+		void pruneDomains(List<Set<Device>> device) {
+			List<Device> toBeRemoved = new ArrayList<>();
+			for (int cell = 0; cell < device.size(); ++cell) {
+				Set<Device> s = device.get(cell);
+				if (s.contains(BasicDevice.WALL)) continue;
+				int c = cell;
+				s.forEach(d -> {
+					if (d.outputs().stream().anyMatch(d.inputs()::contains)) {
+						//empty, mirror, splitter, diffuser, if
+						List<Direction> outputsFacingWalls = d.outputs().stream()
+							.filter(o -> {
+								int neighbor = skipEmpty(device, c, o);
+								return neighbor < 0 || (isWall(device.get(neighbor))
+									&& context.terminalAt(neighbor) == null);
+							}).collect(Collectors.toList());
+						if ((basedOn(d, BasicDevice.MIRROR) || basedOn(d, BasicDevice.IF)) && outputsFacingWalls.size() >= 1)
+							toBeRemoved.add(d);
+						else if ((basedOn(d, BasicDevice.SPLITTER) || basedOn(d, BasicDevice.DIFFUSER)) &&
+								//three sides, or two non-opposing sides
+								(outputsFacingWalls.size() >= 3 || (outputsFacingWalls.size() == 2 && !outputsFacingWalls.get(0).opposite().equals(outputsFacingWalls.get(1)))))
+							toBeRemoved.add(d);
+						//can't remove empty if we're using device-count-limited search
+					} else {
+						//and, or, xor
+						int outputsFacingWalls = (int)d.outputs().stream()
+							.filter(o -> {
+								int neighbor = skipEmpty(device, c, o);
+								return neighbor < 0 || (isWall(device.get(neighbor))
+									&& !isReceiver(context.terminalAt(neighbor)));
+									//emitters count as walls when inputs and outputs are disjoint
+							}).count();
+						if (outputsFacingWalls >= 1)
+							toBeRemoved.add(d);
+					}
+				});
+				if (!toBeRemoved.isEmpty()) {
+					s.removeAll(toBeRemoved);
+					toBeRemoved.clear();
+				}
+			}
+		}
+		/**
+		 * Returns the first cell from the given cell in the given direction
+		 * not known to be empty, or -1 if there isn't one.
+		 */
+		private int skipEmpty(List<Set<Device>> device, int cell, Direction d) {
+			int neighbor = context.shape.neighbor(cell, d);
+			//ignore known-empty cells, as they don't affect the beam
+			while (neighbor >= 0 && isEmpty(device.get(neighbor)))
+				neighbor = context.shape.neighbor(neighbor, d);
+			return neighbor;
+		}
+		private static boolean isReceiver(Terminal t) {
+			return t != null && t.isReceiver();
+		}
+	}
+
+	private static boolean isWall(Set<Device> domain) {
+		return domain.size() == 1 && domain.contains(BasicDevice.WALL);
+	}
+
+	private static boolean isEmpty(Set<Device> domain) {
+		return domain.size() == 1 && domain.contains(BasicDevice.EMPTY);
+	}
+
+	private static final class NoInputFromEmitter extends PruningRule.DomainRule {
+		private final PruningRule.Context context;
+		NoInputFromEmitter(String name, PruningRule.Context context) {
+			super(name);
+			this.context = context;
+		}
+		@Override
+		void pruneDomains(List<Set<Device>> devices) {
+			//Devices adjacent to an emitter in the emitter's direction must have
+			//at least one of their inputs facing the emitter if there is a truth
+			//table row where only that emitter is true and any receiver is true.
+			for (Terminal t : context.emitters) {
+				if (!emitterMustFlow(t)) continue;
+				int neighbor = context.shape.neighbor(t.index(), t.dir());
+				//ignore known-empty cells, as they don't affect the beam
+				while (neighbor >= 0 && isEmpty(devices.get(neighbor)))
+					neighbor = context.shape.neighbor(neighbor, t.dir());
+				if (neighbor < 0) continue;
+				Set<Device> p = devices.get(neighbor);
+				List<Device> toBeRemoved = p.stream().filter(d -> !d.inputs().contains(t.dir().opposite())).collect(Collectors.toList());
+				if (!toBeRemoved.isEmpty()) {
+					p.removeAll(toBeRemoved);
+				}
+			}
+		}
+		private boolean emitterMustFlow(Terminal emitter) {
+			for (int ttr = 0; ttr < context.truthTableRows; ++ttr) {
+				int finalttr = ttr;
+				if (!emitter.values().get(ttr)) continue;
+				if (context.emitters.stream().filter(e -> e != emitter).anyMatch(e -> e.values().get(finalttr))) continue;
+				if (context.receivers.stream().noneMatch(r -> r.values().get(finalttr))) continue;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private static final class NoOutputToReceiver extends PruningRule.DomainRule {
+		private final PruningRule.Context context;
+		NoOutputToReceiver(String name, PruningRule.Context context) {
+			super(name);
+			this.context = context;
+		}
+		@Override
+		void pruneDomains(List<Set<Device>> devices) {
+			//Devices adjacent to a receiver in the receiver's direction must have
+			//at least one of their outputs facing the receiver if the receiver is
+			//ever true.
+			for (Terminal t : context.receivers) {
+				if (!t.values().contains(true)) continue;
+				int neighbor = context.shape.neighbor(t.index(), t.dir());
+				if (neighbor < 0) continue;
+				Set<Device> p = devices.get(neighbor);
+				List<Device> toBeRemoved = p.stream().filter(d -> !d.outputs().contains(t.dir().opposite())).collect(Collectors.toList());
+				if (!toBeRemoved.isEmpty()) {
+					p.removeAll(toBeRemoved);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rejects rows with two horizontally adjacent gates (ignoring empty cells
+	 * and horizontal ifs between them) whose outputs the given predicate
+	 * says conflict.
+	 */
+	private static boolean gatesConflict(List<Device> row, BiPredicate<Device, Device> conflict) {
+		for (int i = 0; i < row.size(); ++i) {
+			Device first = row.get(i);
+			if (!basedOn(first, BasicDevice.AND, BasicDevice.OR, BasicDevice.XOR)) continue;
+			for (int j = i+1; j < row.size(); ++j) {
+				Device second = row.get(j);
+				if (second.equals(BasicDevice.EMPTY)) continue;
+				if (basedOn(second, BasicDevice.IF) && second.outputs().contains(Direction.LEFT)) continue; //horizontal if is okay
+				if (!basedOn(second, BasicDevice.AND, BasicDevice.OR, BasicDevice.XOR)) break;
+				if (conflict.test(first, second))
+					return true;
+				break;
+			}
+		}
+		return false;
+	}
+
+	private static final class GatesFacingOutputs extends PruningRule.RowRule {
+		GatesFacingOutputs(String name, PruningRule.Context context) {
+			super(name);
+		}
+		@Override
+		Predicate<List<Device>> rowFilter(List<Direction> terminals) {
+			return row -> gatesConflict(row, (first, second) ->
+					first.outputs().contains(Direction.RIGHT) && second.outputs().contains(Direction.LEFT));
+		}
+	}
+
+	private static final class GatesOpposedOutputs extends PruningRule.RowRule {
+		GatesOpposedOutputs(String name, PruningRule.Context context) {
+			super(name);
+		}
+		@Override
+		Predicate<List<Device>> rowFilter(List<Direction> terminals) {
+			return row -> gatesConflict(row, (first, second) ->
+					first.outputs().equals(second.outputs().stream().map(Direction::opposite).collect(Collectors.toSet())));
+		}
+	}
+
+	private static final class UselessSplitterDiffuser extends PruningRule.RowRule {
+		UselessSplitterDiffuser(String name, PruningRule.Context context) {
+			super(name);
+		}
+		@Override
+		Predicate<List<Device>> rowFilter(List<Direction> terminals) {
+			return row -> {
+				//A splitter or diffuser between two opposing devices with no inputs or
+				//outputs facing the splitter/diffuser is useless.  Terminals are walls
+				//in the row, but one facing the splitter/diffuser feeds or reads it.
+				for (int i = 0; i < row.size(); ++i) {
+					if (!basedOn(row.get(i), BasicDevice.SPLITTER, BasicDevice.DIFFUSER)) continue;
+					int l, r;
+					for (l = i-1; l >= 0; --l)
+						if (!row.get(l).equals(BasicDevice.EMPTY)) break;
+					for (r = i+1; r < row.size(); ++r)
+						if (!row.get(r).equals(BasicDevice.EMPTY)) break;
+					if (l < 0 || r >= row.size()) continue;
+					if (terminals.get(l) == Direction.RIGHT || terminals.get(r) == Direction.LEFT) continue;
+					Device left = row.get(l), right = row.get(r);
+					if (!left.inputs().contains(Direction.RIGHT) && !left.outputs().contains(Direction.RIGHT) &&
+							!right.inputs().contains(Direction.LEFT) && !right.outputs().contains(Direction.LEFT))
+						return true;
+				}
+				return false;
+			};
+		}
+	}
+
+	private static final class ReachabilityRule extends PruningRule.CandidateRule {
+		private final Reachability reachability;
+		ReachabilityRule(String name, PruningRule.Context context) {
+			super(name);
+			this.reachability = new Reachability(context.shape, context.emitters, context.receivers, context.truthTableRows);
+		}
+		@Override
+		Predicate<List<List<Device>>> candidateFilter(int[] rowLengths) {
+			Reachability.Scratch scratch = reachability.new Scratch();
+			return board -> reachability.rejects(board, scratch);
+		}
+	}
+
+	private static boolean basedOn(Device d, BasicDevice first) {
+		BasicDevice b = d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
+		return b == first;
+	}
+	private static boolean basedOn(Device d, BasicDevice first, BasicDevice second) {
+		BasicDevice b = d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
+		return b == first || b == second;
+	}
+	private static boolean basedOn(Device d, BasicDevice first, BasicDevice second, BasicDevice third) {
+		BasicDevice b = d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
+		return b == first || b == second || b == third;
+	}
+}
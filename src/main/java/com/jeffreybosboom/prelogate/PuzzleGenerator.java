@@ -0,0 +1,352 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Generates puzzles with controlled size, for scaling and stress tests.
+ * Each puzzle has a planted solution: we place random devices on the board,
+ * put emitters and receivers on its border, then simulate the board to fill
+ * in the receivers' truth table columns.  Each cell's device set contains
+ * its planted device plus others drawn from the pool.
+ * <p>
+ * Usage: PuzzleGenerator [--width 4] [--height 3] [--emitters 2]
+ * [--receivers 1] [--pool and,or,xor,mirror,splitter,empty]
+ * [--domain-size 3] [--density 0.3] [--rows 16] [--seed 0] [--output file]
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class PuzzleGenerator {
+	private static final int MAX_ATTEMPTS = 10000;
+	private static final String EMITTER_SYMBOLS = "ABCDEFGH", RECEIVER_SYMBOLS = "RSTUVXYZ";
+	private static final String CELL_SYMBOLS = "abcdefghijklmnopqrstuvwxyz0123456789!$%&*+-./:;<=>?@^_~";
+	private final int width, height, emitters, receivers;
+	private List<BasicDevice> pool = ImmutableList.of(BasicDevice.AND, BasicDevice.OR, BasicDevice.XOR,
+			BasicDevice.MIRROR, BasicDevice.SPLITTER, BasicDevice.EMPTY);
+	private int domainSize = 3, maxRows = 16;
+	private double density = 0.3;
+	/**
+	 * Creates a generator for boards with the given interior size (not
+	 * counting the border of walls) and terminal counts.
+	 */
+	public PuzzleGenerator(int width, int height, int emitters, int receivers) {
+		if (width < 1 || height < 1)
+			throw new IllegalArgumentException(String.format("bad board size %dx%d", width, height));
+		if (emitters < 1 || emitters > EMITTER_SYMBOLS.length() || receivers < 1 || receivers > RECEIVER_SYMBOLS.length()
+				|| emitters + receivers > 2 * (width + height))
+			throw new IllegalArgumentException(String.format("bad terminal counts %d, %d", emitters, receivers));
+		this.width = width;
+		this.height = height;
+		this.emitters = emitters;
+		this.receivers = receivers;
+	}
+
+	/**
+	 * Sets the devices cells may hold.
+	 */
+	public PuzzleGenerator pool(List<BasicDevice> pool) {
+		if (pool.isEmpty() || pool.contains(BasicDevice.WALL) || new TreeSet<>(pool).size() != pool.size())
+			throw new IllegalArgumentException("bad pool: "+pool);
+		this.pool = ImmutableList.copyOf(pool);
+		return this;
+	}
+
+	/**
+	 * Sets the number of basic devices (before rotation) in each cell's set.
+	 */
+	public PuzzleGenerator domainSize(int domainSize) {
+		if (domainSize < 1)
+			throw new IllegalArgumentException("bad domain size: "+domainSize);
+		this.domainSize = domainSize;
+		return this;
+	}
+
+	/**
+	 * Sets the fraction of cells holding a non-empty planted device.
+	 */
+	public PuzzleGenerator density(double density) {
+		if (!(density >= 0 && density <= 1))
+			throw new IllegalArgumentException("bad density: "+density);
+		this.density = density;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of truth table rows; if there are more emitter
+	 * combinations, a random subset is used.
+	 */
+	public PuzzleGenerator maxRows(int maxRows) {
+		if (maxRows < 1)
+			throw new IllegalArgumentException("bad row count: "+maxRows);
+		this.maxRows = maxRows;
+		return this;
+	}
+
+	/**
+	 * A generated puzzle and its planted solution.
+	 */
+	public static final class Puzzle {
+		private final List<String> lines;
+		private final List<List<Device>> planted;
+		private Puzzle(List<String> lines, List<List<Device>> planted) {
+			this.lines = lines;
+			this.planted = planted;
+		}
+		/**
+		 * Returns the puzzle in the format of {@link Problem#fromLines(List)}.
+		 */
+		public List<String> lines() {
+			return lines;
+		}
+		public Problem problem() {
+			return Problem.fromLines(lines);
+		}
+		/**
+		 * Returns the planted solution, including the border.
+		 */
+		public List<List<Device>> planted() {
+			return planted;
+		}
+		/**
+		 * Returns the number of devices in the planted solution.
+		 */
+		public int plantedDevices() {
+			return (int)planted.stream().flatMap(List::stream)
+					.filter(d -> d != BasicDevice.EMPTY && d != BasicDevice.WALL).count();
+		}
+	}
+
+	/**
+	 * Generates a puzzle; the same seed and parameters always give the same
+	 * puzzle.
+	 * @throws IllegalStateException if no board with a non-constant receiver
+	 * could be found
+	 */
+	public Puzzle generate(long seed) {
+		Random random = new Random(seed);
+		int rows = height + 2, cols = width + 2;
+		//border cells (not corners) and the inward direction
+		List<int[]> border = new ArrayList<>();
+		for (int c = 1; c <= width; ++c) {
+			border.add(new int[]{0, c, Direction.DOWN.ordinal()});
+			border.add(new int[]{rows-1, c, Direction.UP.ordinal()});
+		}
+		for (int r = 1; r <= height; ++r) {
+			border.add(new int[]{r, 0, Direction.RIGHT.ordinal()});
+			border.add(new int[]{r, cols-1, Direction.LEFT.ordinal()});
+		}
+		Collections.shuffle(border, random);
+		List<int[]> terminals = border.subList(0, emitters + receivers);
+		List<boolean[]> inputs = truthTableInputs(random);
+
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; ++attempt) {
+			Device[][] board = new Device[rows][cols];
+			for (Device[] row : board)
+				Arrays.fill(row, BasicDevice.WALL);
+			for (int r = 1; r <= height; ++r)
+				for (int c = 1; c <= width; ++c)
+					board[r][c] = plant(random);
+			List<List<Device>> planted = Arrays.stream(board).map(ImmutableList::copyOf).collect(Collectors.toList());
+
+			//parse with dummy receiver values, then simulate for the real ones
+			//(cell device sets don't matter to the simulation)
+			List<String> lines = lines(board, terminals, inputs, null, random);
+			boolean[][] values = Search.receiverValues(Problem.fromLines(lines), planted);
+			if (values == null) continue;
+			boolean interesting = false;
+			for (int i = 0; i < receivers; ++i)
+				for (boolean[] v : values)
+					interesting |= v[i] != values[0][i];
+			if (!interesting) continue;
+			return new Puzzle(lines(board, terminals, inputs, values, random), planted);
+		}
+		throw new IllegalStateException("no interesting board after "+MAX_ATTEMPTS+" attempts");
+	}
+
+	private Device plant(Random random) {
+		List<BasicDevice> nonEmpty = pool.stream().filter(d -> d != BasicDevice.EMPTY).collect(Collectors.toList());
+		if (nonEmpty.isEmpty() || (pool.contains(BasicDevice.EMPTY) && random.nextDouble() >= density))
+			return BasicDevice.EMPTY;
+		List<Device> rotations = RotatedDevice.from(nonEmpty.get(random.nextInt(nonEmpty.size()))).asList();
+		return rotations.get(random.nextInt(rotations.size()));
+	}
+
+	private List<boolean[]> truthTableInputs(Random random) {
+		List<boolean[]> inputs = new ArrayList<>();
+		if (emitters < 31 && (1 << emitters) <= maxRows) {
+			for (int i = 0; i < 1 << emitters; ++i)
+				inputs.add(bits(i));
+			return inputs;
+		}
+		Set<Integer> chosen = new TreeSet<>();
+		while (chosen.size() < maxRows)
+			chosen.add(random.nextInt(1 << Math.min(emitters, 30)));
+		for (int i : chosen)
+			inputs.add(bits(i));
+		return inputs;
+	}
+
+	private boolean[] bits(int combination) {
+		boolean[] b = new boolean[emitters];
+		for (int e = 0; e < emitters; ++e)
+			b[e] = (combination & (1 << (emitters - 1 - e))) != 0;
+		return b;
+	}
+
+	/**
+	 * Formats the puzzle, drawing each cell's device set from random.
+	 * @param values receiver values by truth table row, or null for all false
+	 */
+	private List<String> lines(Device[][] board, List<int[]> terminals, List<boolean[]> inputs, boolean[][] values, Random random) {
+		char[][] grid = new char[board.length][board[0].length];
+		for (char[] row : grid)
+			Arrays.fill(row, 'W');
+		Map<Set<BasicDevice>, Character> symbols = new LinkedHashMap<>();
+		for (int r = 1; r <= height; ++r)
+			for (int c = 1; c <= width; ++c) {
+				Set<BasicDevice> domain = EnumSet.of(base(board[r][c]));
+				List<BasicDevice> others = new ArrayList<>(pool);
+				others.removeAll(domain);
+				Collections.shuffle(others, random);
+				domain.addAll(others.subList(0, Math.min(domainSize - 1, others.size())));
+				Character symbol = symbols.get(domain);
+				if (symbol == null) {
+					if (symbols.size() == CELL_SYMBOLS.length())
+						throw new IllegalArgumentException("too many distinct cell device sets");
+					symbol = CELL_SYMBOLS.charAt(symbols.size());
+					symbols.put(domain, symbol);
+				}
+				grid[r][c] = symbol;
+			}
+
+		List<String> lines = new ArrayList<>();
+		lines.add("W wall");
+		StringBuilder header = new StringBuilder();
+		for (int i = 0; i < terminals.size(); ++i) {
+			int[] t = terminals.get(i);
+			boolean emitter = i < emitters;
+			char symbol = emitter ? EMITTER_SYMBOLS.charAt(i) : RECEIVER_SYMBOLS.charAt(i - emitters);
+			grid[t[0]][t[1]] = symbol;
+			lines.add(symbol+(emitter ? " emitter " : " receiver ")+Direction.values()[t[2]].name().toLowerCase(Locale.ROOT));
+			if (i == emitters) header.append(' ');
+			header.append(symbol);
+		}
+		symbols.forEach((domain, symbol) -> lines.add(symbol+" "+domain.stream()
+				.map(d -> d.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(" "))));
+		lines.add("");
+		for (char[] row : grid)
+			lines.add(new String(row));
+		lines.add("");
+		lines.add(header.toString());
+		for (int row = 0; row < inputs.size(); ++row) {
+			StringBuilder sb = new StringBuilder();
+			for (boolean b : inputs.get(row))
+				sb.append(b ? '1' : '0');
+			sb.append(' ');
+			for (int i = 0; i < receivers; ++i)
+				sb.append(values != null && values[row][i] ? '1' : '0');
+			lines.add(sb.toString());
+		}
+		return lines;
+	}
+
+	private static BasicDevice base(Device d) {
+		return d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
+	}
+
+	/**
+	 * Parses a device pool like "and,or,mirror".
+	 */
+	static List<BasicDevice> parsePool(String spec) {
+		return Arrays.stream(spec.split(","))
+				.map(s -> BasicDevice.valueOf(s.trim().toUpperCase(Locale.ROOT)))
+				.collect(Collectors.toList());
+	}
+
+	public static void main(String[] args) throws IOException {
+		int width = 4, height = 3, emitters = 2, receivers = 1;
+		List<BasicDevice> pool = null;
+		Integer domainSize = null, rows = null;
+		Double density = null;
+		long seed = 0;
+		String output = null;
+		for (int i = 0; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--width":
+					width = Integer.parseInt(args[++i]);
+					break;
+				case "--height":
+					height = Integer.parseInt(args[++i]);
+					break;
+				case "--emitters":
+					emitters = Integer.parseInt(args[++i]);
+					break;
+				case "--receivers":
+					receivers = Integer.parseInt(args[++i]);
+					break;
+				case "--pool":
+					pool = parsePool(args[++i]);
+					break;
+				case "--domain-size":
+					domainSize = Integer.parseInt(args[++i]);
+					break;
+				case "--density":
+					density = Double.parseDouble(args[++i]);
+					break;
+				case "--rows":
+					rows = Integer.parseInt(args[++i]);
+					break;
+				case "--seed":
+					seed = Long.parseLong(args[++i]);
+					break;
+				case "--output":
+					output = args[++i];
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option: "+args[i]);
+			}
+		}
+		PuzzleGenerator generator = new PuzzleGenerator(width, height, emitters, receivers);
+		if (pool != null) generator.pool(pool);
+		if (domainSize != null) generator.domainSize(domainSize);
+		if (density != null) generator.density(density);
+		if (rows != null) generator.maxRows(rows);
+		Puzzle puzzle = generator.generate(seed);
+		if (output != null)
+			Files.write(Paths.get(output), puzzle.lines());
+		else
+			puzzle.lines().forEach(System.out::println);
+		System.err.println("planted solution uses "+puzzle.plantedDevices()+" devices: "+puzzle.planted());
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A cheap structural check run before simulation.  For each truth table row,
+ * a candidate is rejected if a receiver that must be lit can't be reached
+ * from that row's lit emitters by any chain of device input-to-output flows,
+ * or if a receiver that must be dark is definitely lit (e.g., fed straight
+ * from an emitter through empty cells or mirrors).
+ * <p>
+ * The check is sound: devices never emit without input, so every beam in
+ * the simulation follows the possible flows, and a definite flow is one that
+ * lights its output whatever the device's other inputs are, so it stays lit
+ * once its input is.  Either way the simulation would reject the candidate
+ * (for a wrong output, or for not quiescing).
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class Reachability {
+	/**
+	 * For each device (by index()) and input side (by Direction ordinal), the
+	 * output sides possibly lit or definitely lit when that side is lit.
+	 */
+	private static final int[][] POSSIBLE = new int[BasicDevice.values().length * 4][4],
+			DEFINITE = new int[BasicDevice.values().length * 4][4];
+	static {
+		for (BasicDevice base : BasicDevice.values())
+			for (byte r = 0; r < 4; ++r) {
+				Device d = r == 0 ? base : new RotatedDevice(base, r);
+				int[] possible = POSSIBLE[index(d)], definite = DEFINITE[index(d)];
+				Arrays.fill(definite, 0xF);
+				for (int in = 0; in < 16; ++in) {
+					int out = mask(d.operate(laser(in)));
+					if (in == 0 && out != 0)
+						throw new AssertionError(d+" emits without input");
+					for (int s = 0; s < 4; ++s)
+						if ((in & 1 << s) != 0) {
+							possible[s] |= out;
+							definite[s] &= out;
+						}
+				}
+			}
+	}
+	private final BoardShape shape;
+	private final ImmutableList<Terminal> emitters, receivers;
+	private final int truthTableRows;
+	Reachability(BoardShape shape, ImmutableList<Terminal> emitters, ImmutableList<Terminal> receivers, int truthTableRows) {
+		this.shape = shape;
+		this.emitters = emitters;
+		this.receivers = receivers;
+		this.truthTableRows = truthTableRows;
+	}
+
+	private static int index(Device d) {
+		if (d instanceof RotatedDevice)
+			return ((RotatedDevice)d).base().ordinal() * 4 + ((RotatedDevice)d).rotationCount();
+		return ((BasicDevice)d).ordinal() * 4;
+	}
+
+	private static int mask(LaserDirection l) {
+		int mask = 0;
+		for (Direction d : Direction.values())
+			if (l.get(d)) mask |= 1 << d.ordinal();
+		return mask;
+	}
+
+	private static LaserDirection laser(int mask) {
+		return LaserDirection.make((mask & 1 << Direction.UP.ordinal()) != 0, (mask & 1 << Direction.RIGHT.ordinal()) != 0,
+				(mask & 1 << Direction.DOWN.ordinal()) != 0, (mask & 1 << Direction.LEFT.ordinal()) != 0);
+	}
+
+	/**
+	 * Working space for one thread, indexed by {@link BoardShape} cell index.
+	 */
+	final class Scratch {
+		private final int[] devices = new int[shape.cells()], lit = new int[shape.cells()];
+		//each output side is lit (and pushes) at most once, plus the emitters
+		private final int[] stack = new int[2 * (4 * shape.cells() + emitters.size())];
+	}
+
+	/**
+	 * Returns true if the given board certainly isn't a solution.
+	 */
+	boolean rejects(List<List<Device>> board, Scratch scratch) {
+		int[] devices = scratch.devices, lit = scratch.lit;
+		int[] stack = scratch.stack;
+		for (int r = 0, i = 0; r < board.size(); ++r) {
+			List<Device> row = board.get(r);
+			for (int c = 0; c < row.size(); ++c)
+				devices[i++] = index(row.get(c));
+		}
+
+		for (int ttr = 0; ttr < truthTableRows; ++ttr) {
+			boolean mustBeLit = false, mustBeDark = false;
+			for (Terminal t : receivers) {
+				mustBeLit |= t.values().get(ttr);
+				mustBeDark |= !t.values().get(ttr);
+			}
+			if (mustBeLit) {
+				propagate(devices, lit, stack, ttr, POSSIBLE);
+				for (Terminal t : receivers)
+					if (t.values().get(ttr) && !receives(lit, t))
+						return true;
+			}
+			if (mustBeDark) {
+				propagate(devices, lit, stack, ttr, DEFINITE);
+				for (Terminal t : receivers)
+					if (!t.values().get(ttr) && receives(lit, t))
+						return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Fills lit with the output sides of each cell lit (per the given flow
+	 * table) from the given truth table row's lit emitters.
+	 */
+	private void propagate(int[] devices, int[] lit, int[] stack, int ttr, int[][] flows) {
+		Arrays.fill(lit, 0);
+		int top = 0;
+		//the stack holds (cell, side lit) pairs entering cells
+		for (Terminal t : emitters)
+			if (t.values().get(ttr))
+				top = push(stack, top, shape.neighbor(t.index(), t.dir()), t.dir().ordinal() ^ 2);
+		while (top > 0) {
+			int side = stack[--top], cell = stack[--top];
+			int fresh = flows[devices[cell]][side] & ~lit[cell];
+			if (fresh == 0) continue;
+			lit[cell] |= fresh;
+			for (Direction o : DIRECTIONS)
+				if ((fresh & 1 << o.ordinal()) != 0)
+					top = push(stack, top, shape.neighbor(cell, o), o.ordinal() ^ 2);
+		}
+	}
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private static int push(int[] stack, int top, int cell, int side) {
+		if (cell < 0)
+			return top;
+		stack[top++] = cell;
+		stack[top++] = side;
+		return top;
+	}
+
+	/**
+	 * Returns true if the given receiver's neighbor outputs toward it.
+	 */
+	private boolean receives(int[] lit, Terminal t) {
+		int cell = shape.neighbor(t.index(), t.dir());
+		return cell >= 0 && (lit[cell] & 1 << (t.dir().ordinal() ^ 2)) != 0;
+	}
+}
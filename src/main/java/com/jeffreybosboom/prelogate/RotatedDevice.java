@@ -45,12 +45,13 @@ public final class RotatedDevice implements Device {
 		this.outputs = Device.super.outputs();
 	}
 
+	//filled eagerly so concurrent searches can read it without locking
 	private static final EnumMap<BasicDevice, ImmutableSet<Device>> FROM_CACHE = new EnumMap<>(BasicDevice.class);
-	public static ImmutableSet<Device> from(BasicDevice base) {
-		ImmutableSet<Device> cached = FROM_CACHE.get(base);
-		if (cached == null) {
+	static {
+		for (BasicDevice base : BasicDevice.values()) {
+			ImmutableSet<Device> rotations;
 			if (base == BasicDevice.EMPTY)
-				cached = ImmutableSet.of(base);
+				rotations = ImmutableSet.of(base);
 			else {
 				Map<List<LaserDirection>, Device> map = new LinkedHashMap<>();
 				map.put(LaserDirection.all().map(base::operate).collect(Collectors.toList()), base);
@@ -58,17 +59,23 @@ public final class RotatedDevice implements Device {
 					RotatedDevice d = new RotatedDevice(base, i);
 					map.putIfAbsent(LaserDirection.all().map(d::operate).collect(Collectors.toList()), d);
 				}
-				cached = ImmutableSet.copyOf(map.values());
+				rotations = ImmutableSet.copyOf(map.values());
 			}
-			FROM_CACHE.put(base, cached);
+			FROM_CACHE.put(base, rotations);
 		}
-		return cached;
+	}
+	public static ImmutableSet<Device> from(BasicDevice base) {
+		return FROM_CACHE.get(base);
 	}
 
 	public BasicDevice base() {
 		return device;
 	}
 
+	int rotationCount() {
+		return rotationCount;
+	}
+
 	@Override
 	public LaserDirection operate(LaserDirection inputs) {
 		return device.operate(inputs.rotateLeft(rotationCount)).rotateRight(rotationCount);
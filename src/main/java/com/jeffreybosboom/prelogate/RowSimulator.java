@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+/**
+ * Simulates one truth table row of one puzzle's boards, as generated by
+ * {@link RowSimulatorCompiler} or created by a {@link RowSimulatorProvider}.
+ * Public only so generated classes, which live in their own class loader,
+ * and providers can implement it.  Implementations are used by many
+ * threads at once.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public interface RowSimulator {
+	public static final int PASSED = 0, UNSTABLE = 1, WRONG_OUTPUT = 2;
+
+	/**
+	 * Simulates the given board until it quiesces, returning PASSED,
+	 * UNSTABLE or WRONG_OUTPUT.
+	 * @param ttr the truth table row
+	 * @param codes the board's {@link DeviceList} codes, by cell index
+	 * @param a scratch space, one element per cell
+	 * @param b scratch space, one element per cell
+	 * @param lit set to generation for each cell with more than one possible
+	 * device that receives input (and possibly other lit cells)
+	 * @param generation the value to mark lit cells with
+	 */
+	public int simulate(int ttr, byte[] codes, int[] a, int[] b, int[] lit, int generation);
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * Generates a {@link RowSimulator} specialized to one puzzle and compiles it
+ * with the system Java compiler.  Devices are packed into tables (four
+ * output bits for each of the sixteen inputs, in a long), and each tick is
+ * straight-line code over the cells, with neighbor indices as constants and
+ * cells that can never emit (walls) folded away.  Emitters and receivers are
+ * inlined per truth table row.  Ticks are split across methods of at most
+ * CELLS_PER_METHOD cells, keeping each under the size the JIT refuses to
+ * compile.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class RowSimulatorCompiler {
+	private static final int CELLS_PER_METHOD = 48;
+	private static final AtomicInteger NEXT_CLASS = new AtomicInteger();
+	private final BoardShape shape;
+	private final List<Set<Device>> domains;
+	private final List<Terminal> emitters, receivers;
+	private final int truthTableRows, quiescenceTicks;
+	private final boolean[] emitterCell;
+	private RowSimulatorCompiler(BoardShape shape, List<Set<Device>> domains, List<Terminal> emitters, List<Terminal> receivers,
+			int truthTableRows, int quiescenceTicks) {
+		this.shape = shape;
+		this.domains = domains;
+		this.emitters = emitters;
+		this.receivers = receivers;
+		this.truthTableRows = truthTableRows;
+		this.quiescenceTicks = quiescenceTicks;
+		this.emitterCell = new boolean[shape.cells()];
+		for (Terminal t : emitters)
+			emitterCell[t.index()] = true;
+	}
+
+	/**
+	 * Returns a simulator for boards of the given shape and domains, or null
+	 * if no system Java compiler is available (e.g., on a JRE).
+	 */
+	static RowSimulator compile(BoardShape shape, List<Set<Device>> domains, List<Terminal> emitters, List<Terminal> receivers,
+			int truthTableRows, int quiescenceTicks) {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) return null;
+		RowSimulatorCompiler generator = new RowSimulatorCompiler(shape, domains, emitters, receivers, truthTableRows, quiescenceTicks);
+		for (Terminal t : emitters)
+			if (!generator.isDead(t.index(), true))
+				throw new IllegalArgumentException("emitter at "+shape.coordinate(t.index())+" isn't a wall");
+		String name = RowSimulatorCompiler.class.getPackage().getName()+".GeneratedRowSimulator"+NEXT_CLASS.getAndIncrement();
+		return generator.load(compiler, name, generator.generate(name.substring(name.lastIndexOf('.')+1)));
+	}
+
+	/**
+	 * Returns the device's outputs for each of the sixteen inputs, four bits
+	 * each (bit d for Direction ordinal d), as a long indexed by input * 4.
+	 */
+	static long table(Device device) {
+		long table = 0;
+		for (int in = 0; in < 16; ++in) {
+			LaserDirection out = device.operate(LaserDirection.make((in & 1) != 0, (in & 2) != 0, (in & 4) != 0, (in & 8) != 0));
+			int bits = (out.up() ? 1 : 0) | (out.right() ? 2 : 0) | (out.down() ? 4 : 0) | (out.left() ? 8 : 0);
+			table |= (long)bits << (in * 4);
+		}
+		return table;
+	}
+
+	/**
+	 * Returns true if the given cell never emits: all its possible devices
+	 * emit nothing for any input.  Emitter cells emit, unless ignoring them.
+	 */
+	private boolean isDead(int cell, boolean ignoreEmitters) {
+		if (emitterCell[cell] && !ignoreEmitters) return false;
+		for (Device d : domains.get(cell))
+			if (table(d) != 0)
+				return false;
+		return true;
+	}
+
+	private String generate(String simpleName) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(RowSimulatorCompiler.class.getPackage().getName()).append(";\n");
+		sb.append("public final class ").append(simpleName).append(" implements RowSimulator {\n");
+		sb.append("\tprivate static final long[] OPS = {");
+		for (int code = 0; code < DeviceList.CODES; ++code) {
+			Device d = DeviceList.device((byte)code);
+			sb.append(code > 0 ? ", " : "").append(d != null ? table(d) : 0).append("L");
+		}
+		sb.append("};\n");
+
+		sb.append("\tpublic int simulate(int ttr, byte[] c, int[] a, int[] b, int[] lit, int g) {\n");
+		sb.append("\t\tjava.util.Arrays.fill(a, 0);\n\t\tjava.util.Arrays.fill(b, 0);\n");
+		sb.append("\t\tswitch (ttr) {\n");
+		for (int ttr = 0; ttr < truthTableRows; ++ttr) {
+			sb.append("\t\t\tcase ").append(ttr).append(":\n");
+			int[] bits = new int[shape.cells()];
+			for (Terminal t : emitters)
+				if (t.values().get(ttr))
+					bits[t.index()] |= 1 << t.dir().ordinal();
+			for (int i = 0; i < bits.length; ++i)
+				if (bits[i] != 0)
+					sb.append("\t\t\t\ta[").append(i).append("] = b[").append(i).append("] = ").append(bits[i]).append(";\n");
+			sb.append("\t\t\t\tbreak;\n");
+		}
+		sb.append("\t\t}\n");
+		int methods = (shape.cells() + CELLS_PER_METHOD - 1) / CELLS_PER_METHOD;
+		sb.append("\t\tint[] p = a, n = b;\n\t\tint ticks = 0, d;\n\t\tdo {\n");
+		sb.append("\t\t\tint[] t = p; p = n; n = t;\n\t\t\td = 0");
+		for (int m = 0; m < methods; ++m)
+			sb.append(" | tick").append(m).append("(p, n, c, lit, g)");
+		sb.append(";\n");
+		sb.append("\t\t} while (d != 0 && ++ticks < ").append(quiescenceTicks).append(");\n");
+		sb.append("\t\tif (ticks >= ").append(quiescenceTicks).append(") return UNSTABLE;\n");
+		sb.append("\t\tswitch (ttr) {\n");
+		for (int ttr = 0; ttr < truthTableRows; ++ttr) {
+			sb.append("\t\t\tcase ").append(ttr).append(":\n");
+			for (Terminal t : receivers) {
+				int expected = t.values().get(ttr) ? 1 : 0;
+				int nb = shape.neighbor(t.index(), t.dir());
+				if (nb < 0 || isDead(nb, false)) {
+					//nothing can light this receiver
+					if (expected != 0)
+						sb.append("\t\t\t\tif (true) return WRONG_OUTPUT;\n");
+					continue;
+				}
+				sb.append("\t\t\t\tif ((n[").append(nb).append("] >>> ").append(t.dir().ordinal() ^ 2).append(" & 1) != ")
+						.append(expected).append(") return WRONG_OUTPUT;\n");
+			}
+			sb.append("\t\t\t\tbreak;\n");
+		}
+		sb.append("\t\t}\n\t\treturn PASSED;\n\t}\n");
+
+		for (int m = 0; m < methods; ++m) {
+			sb.append("\tprivate static int tick").append(m).append("(int[] p, int[] n, byte[] c, int[] lit, int g) {\n");
+			sb.append("\t\tint in, o, d = 0;\n");
+			for (int i = m * CELLS_PER_METHOD; i < Math.min((m+1) * CELLS_PER_METHOD, shape.cells()); ++i)
+				generateCell(i, sb);
+			sb.append("\t\treturn d;\n\t}\n");
+		}
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	private void generateCell(int i, StringBuilder sb) {
+		//emitters' outputs are fixed for the row; dead cells stay 0
+		if (emitterCell[i] || isDead(i, false)) return;
+		StringBuilder input = new StringBuilder();
+		for (Direction dir : Direction.values()) {
+			int nb = shape.neighbor(i, dir);
+			if (nb < 0 || isDead(nb, false)) continue;
+			if (input.length() > 0) input.append(" | ");
+			input.append("(p[").append(nb).append("] >>> ").append(dir.ordinal() ^ 2).append(" & 1) << ").append(dir.ordinal());
+		}
+		Set<Device> domain = domains.get(i);
+		if (input.length() == 0 && domain.stream().allMatch(dev -> (table(dev) & 15) == 0))
+			return; //never lit, so never emits
+		sb.append("\t\tin = ").append(input.length() > 0 ? input : "0").append(";\n");
+		if (domain.size() > 1)
+			sb.append("\t\tif (in != 0) lit[").append(i).append("] = g;\n");
+		String table = domain.size() > 1 ? "OPS[c["+i+"]]" : table(domain.iterator().next())+"L";
+		sb.append("\t\to = (int)(").append(table).append(" >>> (in << 2)) & 15;\n");
+		sb.append("\t\td |= o ^ p[").append(i).append("];\n");
+		sb.append("\t\tn[").append(i).append("] = o;\n");
+	}
+
+	private RowSimulator load(JavaCompiler compiler, String name, String source) {
+		Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+		JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(
+				compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+			@Override
+			public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+				return new SimpleJavaFileObject(URI.create("mem:///"+className.replace('.', '/')+kind.extension), kind) {
+					@Override
+					public OutputStream openOutputStream() {
+						ByteArrayOutputStream out = new ByteArrayOutputStream();
+						classes.put(className, out);
+						return out;
+					}
+				};
+			}
+		};
+		JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///"+name.replace('.', '/')+".java"), JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+		String classpath;
+		try {
+			classpath = Paths.get(RowSimulator.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		} catch (URISyntaxException ex) {
+			throw new IllegalStateException(ex);
+		}
+		StringWriter diagnostics = new StringWriter();
+		boolean compiled = compiler.getTask(diagnostics, fileManager, null,
+				Arrays.asList("-classpath", classpath, "-g:none", "-nowarn"), null, Collections.singletonList(file)).call();
+		if (!compiled)
+			throw new IllegalStateException("generated simulator didn't compile: "+diagnostics);
+		ClassLoader loader = new ClassLoader(RowSimulator.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String className) throws ClassNotFoundException {
+				ByteArrayOutputStream bytes = classes.get(className);
+				if (bytes == null) throw new ClassNotFoundException(className);
+				return defineClass(className, bytes.toByteArray(), 0, bytes.size());
+			}
+		};
+		try {
+			return (RowSimulator)loader.loadClass(name).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A source of {@link RowSimulator}s from another artifact, found with
+ * {@link java.util.ServiceLoader}, letting simulators that need a newer JDK
+ * than this one targets be used when they're on the classpath.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public interface RowSimulatorProvider {
+	/**
+	 * Returns a simulator for boards of the given shape and domains, or null
+	 * if this provider can't run in this JVM.
+	 */
+	public RowSimulator create(BoardShape shape, List<Set<Device>> domains, List<Terminal> emitters, List<Terminal> receivers,
+			int truthTableRows, int quiescenceTicks);
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Materialized rows kept off-heap, for boards whose rows don't fit in the
+ * heap.  Each usage bucket is a file of fixed-width {@link DeviceList} code
+ * records, memory-mapped read-only; rows read from a bucket are views of the
+ * mapped bytes, so the OS pages them in and out as enumeration needs them.
+ * Each store writes its files to its own new subdirectory of the given
+ * directory, so searches can share a directory; the files are deleted when
+ * the JVM exits.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class RowStore {
+	/**
+	 * The largest mapping we make; a single mapping can't exceed 2GB.
+	 */
+	static final int MAX_CHUNK_BYTES = 1 << 30;
+	private final Path directory;
+	private int nextRow;
+	public RowStore(Path directory) throws IOException {
+		this.directory = Files.createTempDirectory(Files.createDirectories(directory), "rows");
+		//deleted after its files, which are registered later
+		this.directory.toFile().deleteOnExit();
+	}
+
+	/**
+	 * Returns a builder for the buckets of one materialized row.
+	 */
+	Builder builder(int width, int keySpace) {
+		return new Builder(nextRow++, width, keySpace);
+	}
+
+	final class Builder {
+		private final int row, width;
+		private final DenseIntegerMap<OutputStream> outputs;
+		private final DenseIntegerMap<Path> paths;
+		private final int[] counts;
+		private final byte[] record;
+		private Builder(int row, int width, int keySpace) {
+			this.row = row;
+			this.width = width;
+			this.outputs = new DenseIntegerMap<>(keySpace);
+			this.paths = new DenseIntegerMap<>(keySpace);
+			this.counts = new int[keySpace];
+			this.record = new byte[width];
+		}
+
+		void add(int key, List<Device> instance) throws IOException {
+			OutputStream out = outputs.get(key);
+			if (out == null) {
+				Path path = directory.resolve(String.format("row%d-%d.bin", row, key));
+				path.toFile().deleteOnExit();
+				out = new BufferedOutputStream(new FileOutputStream(path.toFile()), 1 << 16);
+				outputs.put(key, out);
+				paths.put(key, path);
+			}
+			for (int i = 0; i < width; ++i)
+				record[i] = DeviceList.code(instance.get(i));
+			out.write(record);
+			if (++counts[key] < 0)
+				throw new IllegalArgumentException("bucket too large");
+		}
+
+		/**
+		 * Finishes writing and maps the buckets.
+		 */
+		Map<Integer, List<List<Device>>> build() throws IOException {
+			DenseIntegerMap<List<List<Device>>> buckets = new DenseIntegerMap<>(counts.length);
+			for (Map.Entry<Integer, OutputStream> e : outputs.entrySet()) {
+				e.getValue().close();
+				int key = e.getKey();
+				try (FileChannel channel = FileChannel.open(paths.get(key), StandardOpenOption.READ)) {
+					buckets.put(key, bucket(channel, 0, width, counts[key]));
+				}
+			}
+			return buckets;
+		}
+	}
+
+	/**
+	 * Returns a bucket of the given number of records of the given width
+	 * starting at the given offset in the given file, mapped read-only (the
+	 * mappings outlive the channel).
+	 */
+	static List<List<Device>> bucket(FileChannel channel, long begin, int width, int count) throws IOException {
+		long bytes = (long)width * count;
+		if (begin < 0 || count < 0 || begin + bytes > channel.size())
+			throw new IOException(String.format("bucket of %d bytes at %d overruns file of %d bytes", bytes, begin, channel.size()));
+		int perChunk = Math.max(MAX_CHUNK_BYTES / Math.max(width, 1), 1);
+		ByteBuffer[] chunks = new ByteBuffer[(int)((count + (long)perChunk - 1) / perChunk)];
+		for (int c = 0; c < chunks.length; ++c) {
+			long offset = (long)c * perChunk * width;
+			chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, begin + offset, Math.min((long)perChunk * width, bytes - offset));
+		}
+		return new Bucket(chunks, perChunk, width, count);
+	}
+
+	private static final class Bucket extends AbstractList<List<Device>> implements RandomAccess {
+		private final ByteBuffer[] chunks;
+		private final int perChunk, width, size;
+		Bucket(ByteBuffer[] chunks, int perChunk, int width, int size) {
+			this.chunks = chunks;
+			this.perChunk = perChunk;
+			this.width = width;
+			this.size = size;
+		}
+		@Override
+		public List<Device> get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException(index+" of "+size);
+			return new Row(chunks[index / perChunk], (index % perChunk) * width, width);
+		}
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private static final class Row extends AbstractList<Device> implements RandomAccess {
+		private final ByteBuffer buffer;
+		private final int offset, width;
+		Row(ByteBuffer buffer, int offset, int width) {
+			this.buffer = buffer;
+			this.offset = offset;
+			this.width = width;
+		}
+		@Override
+		public Device get(int index) {
+			if (index < 0 || index >= width)
+				throw new IndexOutOfBoundsException(index+" of "+width);
+			//absolute gets don't touch the position, so this is thread-safe
+			return DeviceList.device(buffer.get(offset + index));
+		}
+		@Override
+		public int size() {
+			return width;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs Search over a sweep of {@link PuzzleGenerator generated} puzzles,
+ * writing one CSV record per puzzle: construction and search time, trials/s,
+ * time to the first solution, peak heap use, and whether the planted
+ * solution was found.  Each search uses the planted solution's device count.
+ * The default pruning rules may prune the planted solution, so plantedFound is
+ * blank unless the planted solution is one of the search's trials (and the
+ * search either found it or ran to completion).
+ * <p>
+ * Usage: ScalingHarness [--width 3,4,5] [--height 2,3] [--emitters 2]
+ * [--receivers 1] [--domain-size 2,3] [--rows 16] [--density 0.3]
+ * [--pool and,or,...] [--seeds 3] [--max-trials n] [--time-limit seconds]
+ * [--output scaling.csv]
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class ScalingHarness {
+	private ScalingHarness() {}
+
+	private static final String HEADER = "width,height,emitters,receivers,domainSize,rows,seed,status,devices,"
+			+ "trials,totalTrials,constructSeconds,searchSeconds,trialsPerSecond,firstSolutionSeconds,"
+			+ "solutions,plantedFound,peakHeapBytes";
+
+	private static List<Integer> ints(String list) {
+		return Arrays.stream(list.split(",")).map(String::trim).map(Integer::valueOf).collect(Collectors.toList());
+	}
+
+	public static void main(String[] args) throws IOException {
+		List<Integer> widths = ImmutableList.of(3, 4, 5), heights = ImmutableList.of(2, 3),
+				emitterCounts = ImmutableList.of(2), receiverCounts = ImmutableList.of(1),
+				domainSizes = ImmutableList.of(2, 3), rowCounts = ImmutableList.of(16);
+		List<BasicDevice> pool = null;
+		double density = 0.3;
+		int seeds = 3;
+		long maxTrials = 100_000_000, timeLimit = 600;
+		String output = null;
+		for (int i = 0; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--width":
+					widths = ints(args[++i]);
+					break;
+				case "--height":
+					heights = ints(args[++i]);
+					break;
+				case "--emitters":
+					emitterCounts = ints(args[++i]);
+					break;
+				case "--receivers":
+					receiverCounts = ints(args[++i]);
+					break;
+				case "--domain-size":
+					domainSizes = ints(args[++i]);
+					break;
+				case "--rows":
+					rowCounts = ints(args[++i]);
+					break;
+				case "--density":
+					density = Double.parseDouble(args[++i]);
+					break;
+				case "--pool":
+					pool = PuzzleGenerator.parsePool(args[++i]);
+					break;
+				case "--seeds":
+					seeds = Integer.parseInt(args[++i]);
+					break;
+				case "--max-trials":
+					maxTrials = Long.parseLong(args[++i]);
+					break;
+				case "--time-limit":
+					timeLimit = Long.parseLong(args[++i]);
+					break;
+				case "--output":
+					output = args[++i];
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option: "+args[i]);
+			}
+		}
+
+		ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "time-limit");
+			t.setDaemon(true);
+			return t;
+		});
+		try (PrintWriter out = output != null ? new PrintWriter(Files.newBufferedWriter(Paths.get(output))) : new PrintWriter(System.out)) {
+			out.println(HEADER);
+			for (List<Integer> p : Lists.cartesianProduct(ImmutableList.of(widths, heights, emitterCounts, receiverCounts, domainSizes, rowCounts)))
+				for (int seed = 0; seed < seeds; ++seed) {
+					String record = p.stream().map(String::valueOf).collect(Collectors.joining(","))+","+seed+","
+							+ run(p.get(0), p.get(1), p.get(2), p.get(3), p.get(4), p.get(5), density, pool, seed, maxTrials, timeLimit, timer);
+					out.println(record);
+					out.flush();
+					System.err.println(record);
+				}
+		}
+	}
+
+	/**
+	 * Generates and solves one puzzle, returning the CSV fields from status on.
+	 */
+	private static String run(int width, int height, int emitters, int receivers, int domainSize, int rows,
+			double density, List<BasicDevice> pool, long seed, long maxTrials, long timeLimit,
+			ScheduledExecutorService timer) throws IOException {
+		PuzzleGenerator.Puzzle puzzle;
+		try {
+			PuzzleGenerator generator = new PuzzleGenerator(width, height, emitters, receivers)
+					.domainSize(domainSize).density(density).maxRows(rows);
+			if (pool != null) generator.pool(pool);
+			puzzle = generator.generate(seed);
+		} catch (IllegalArgumentException | IllegalStateException ex) {
+			return "unplantable,,,,,,,,,,";
+		}
+
+		List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(m -> m.getType() == MemoryType.HEAP).collect(Collectors.toList());
+		System.gc();
+		heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+		long constructStart = System.nanoTime();
+		Search search = new Search(puzzle.problem(), Inventory.of(puzzle.plantedDevices()));
+		long constructNanos = System.nanoTime() - constructStart;
+		if (search.countTrials() > maxTrials)
+			return String.format("skipped,%d,,%d,%.3f,,,,,,", puzzle.plantedDevices(), search.countTrials(), constructNanos / 1e9);
+
+		List<List<Device>> planted = puzzle.planted();
+		boolean plantedIsTrial = search.isTrial(planted) && search.isSolution(planted);
+		long[] firstSolution = {-1};
+		boolean[] plantedFound = {false};
+		long searchStart = System.nanoTime();
+		SolutionSink sink = solutions -> {
+			synchronized (firstSolution) {
+				if (firstSolution[0] < 0)
+					firstSolution[0] = System.nanoTime() - searchStart;
+				for (List<ImmutableList<Device>> s : solutions)
+					plantedFound[0] |= s.equals(planted);
+			}
+		};
+		SearchControl control = new SearchControl();
+		timer.schedule(control::cancel, timeLimit, TimeUnit.SECONDS);
+		SearchStatistics stats = search.search(0, search.countTrials(), Long.MAX_VALUE, sink, null, control);
+		long peakHeap = heapPools.stream().mapToLong(m -> m.getPeakUsage().getUsed()).sum();
+		synchronized (firstSolution) {
+			String found = plantedIsTrial && (plantedFound[0] || !stats.stoppedEarly()) ? Boolean.toString(plantedFound[0]) : "";
+			return String.format("%s,%d,%d,%d,%.3f,%.3f,%.0f,%s,%d,%s,%d",
+					stats.stoppedEarly() ? "timeout" : "complete", puzzle.plantedDevices(),
+					stats.trials(), stats.totalTrials(), constructNanos / 1e9, stats.elapsedNanos() / 1e9,
+					stats.trialsPerSecond(), firstSolution[0] < 0 ? "" : String.format("%.3f", firstSolution[0] / 1e9),
+					stats.solutions(), found, peakHeap);
+		}
+	}
+}
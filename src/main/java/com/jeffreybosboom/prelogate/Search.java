@@ -18,25 +18,37 @@
 package com.jeffreybosboom.prelogate;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Multimaps;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.math.LongMath;
 import com.jeffreybosboom.prelogate.Problem.Terminal;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EnumSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceLoader;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  *
@@ -44,305 +56,981 @@ import java.util.stream.Collectors;
  * @since 6/28/2015
  */
 public final class Search {
-	private final List<ListMultimap<Integer, ImmutableList<Device>>> materializedRows = new ArrayList<>();
+	/**
+	 * For each row, the row's instances bucketed by usage key.  Rows from a
+	 * {@link RowStore} or a loaded {@link SearchPlan} are views of mapped
+	 * files, so we copy only when delivering a solution.
+	 */
+	private final List<Map<Integer, List<List<Device>>>> materializedRows = new ArrayList<>();
 	private final List<int[]> partitions = new ArrayList<>();
-	private final ImmutableMap<Coordinate, Terminal> emitters, receivers;
+	private final BoardShape shape;
+	private final ImmutableList<Terminal> emitters, receivers;
 	private final int truthTableRows;
+	private final PruningRules pruningRules;
+	/**
+	 * This search's instances of its pruning rules, holding their counts.
+	 */
+	private final List<PruningRule> rules;
+	private final Inventory inventory;
+	/**
+	 * Trials are numbered in a single index space: partition i covers
+	 * [partitionStarts[i], partitionStarts[i+1]), and within a partition the
+	 * index is a mixed-radix number over the row choices.
+	 */
+	private final long[] partitionStarts;
+	private final int[] rowLengths;
+	/**
+	 * The pruned device sets for each cell, by {@link BoardShape} cell index.
+	 */
+	private final List<Set<Device>> domains;
 	public Search(Problem problem, int deviceCount) {
-		ImmutableMap.Builder<Coordinate, Terminal> eb = ImmutableMap.builder(), rb = ImmutableMap.builder();
-		problem.terminals().forEach(t -> (t.isEmitter() ? eb : rb).put(t.coord(), t));
-		this.emitters = eb.build();
-		this.receivers = rb.build();
+		this(problem, Inventory.of(deviceCount));
+	}
+
+	public Search(Problem problem, Inventory inventory) {
+		this(problem, inventory, null);
+	}
+
+	/**
+	 * Creates a Search keeping its materialized rows in the given store, or
+	 * on the heap if the store is null.
+	 */
+	public Search(Problem problem, Inventory inventory, RowStore store) {
+		this(problem, inventory, store, PruningRules.defaults());
+	}
+
+	/**
+	 * Creates a Search using the given pruning rules, keeping its
+	 * materialized rows in the given store, or on the heap if the store is
+	 * null.
+	 */
+	public Search(Problem problem, Inventory inventory, RowStore store, PruningRules pruningRules) {
+		this.inventory = inventory;
+		this.shape = problem.shape();
+		this.emitters = terminals(problem, true);
+		this.receivers = terminals(problem, false);
 		this.truthTableRows = problem.terminals().get(0).values().size();
+		this.pruningRules = pruningRules;
+		this.rules = pruningRules.create(new PruningRule.Context(shape, emitters, receivers, truthTableRows));
 
-		Map<Coordinate, Set<Device>> devices = prune(problem.devices());
-		devices.forEach((k, v) -> System.out.format("%s: %s%n", k, v));
-
-		//If we have two rows with the same sets of devices, we want to share
-		//their materialized rows.
-		Map<List<Set<Device>>, ListMultimap<Integer, ImmutableList<Device>>> materializationSharing = new HashMap<>();
-		for (List<Set<Device>> row : devicesAsGrid(devices)) {
-			ListMultimap<Integer, ImmutableList<Device>> materialization = materializationSharing.get(row);
-			if (materialization == null) {
-				materialization = Multimaps.newListMultimap(new DenseIntegerMap<>(deviceCount+1), ArrayList::new);
-				for (List<Device> instance : Sets.cartesianProduct(row)) {
-					if (pruneRow(instance)) continue;
-					int devicesInInstance = 0;
-					for (Device d : instance)
-						if (d != BasicDevice.EMPTY && d != BasicDevice.WALL)
-							++devicesInInstance;
-					if (devicesInInstance > deviceCount) continue;
-					materialization.put(devicesInInstance, ImmutableList.copyOf(instance));
-				}
-				//TODO: we used ListMultimap because we know there aren't duplicates
-				//we could assert that by sorting each of materialization.values()
-				//and ensuring all neighbors are distinct
-				materializationSharing.put(row, materialization);
-			}
-			materializedRows.add(materialization);
+		List<Set<Device>> devices = prune(problem.domains(), rules);
+		this.domains = devices;
+
+		//If we have two rows with the same sets of devices (and terminals, which
+		//row rules may look at), we want to share their materialized rows.
+		//Distinct rows are materialized in parallel (and large rows are split
+		//further), but the results are assembled in order, so trial numbering
+		//doesn't depend on scheduling.
+		List<List<Set<Device>>> grid = devicesAsGrid(shape, devices);
+		this.rowLengths = shape.rowLengths();
+		List<Map.Entry<List<Set<Device>>, List<Direction>>> rowKeys = IntStream.range(0, grid.size())
+				.mapToObj(r -> Maps.immutableEntry(grid.get(r), rowTerminals(r)))
+				.collect(Collectors.toList());
+		List<Map.Entry<List<Set<Device>>, List<Direction>>> distinct = rowKeys.stream().distinct().collect(Collectors.toList());
+		//builders are numbered, so create them in order
+		List<RowStore.Builder> builders = store == null ? null : distinct.stream()
+				.map(row -> store.builder(row.getKey().size(), inventory.keySpace()))
+				.collect(Collectors.toList());
+		List<Map<Integer, List<List<Device>>>> materializations = IntStream.range(0, distinct.size()).parallel()
+				.mapToObj(i -> {
+					List<Set<Device>> row = distinct.get(i).getKey();
+					List<Direction> terminals = distinct.get(i).getValue();
+					try {
+						return store != null ? materialize(row, terminals, builders.get(i)) : materialize(row, terminals);
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				}).collect(Collectors.toList());
+		Map<Map.Entry<List<Set<Device>>, List<Direction>>, Map<Integer, List<List<Device>>>> materializationSharing = new HashMap<>();
+		for (int i = 0; i < distinct.size(); ++i)
+			materializationSharing.put(distinct.get(i), materializations.get(i));
+		//TODO: we know there aren't duplicates; we could assert that by
+		//sorting each bucket and ensuring all neighbors are distinct
+		for (Map.Entry<List<Set<Device>>, List<Direction>> row : rowKeys)
+			materializedRows.add(materializationSharing.get(row));
+		partitions.addAll(computePartitions());
+		this.partitionStarts = partitionStarts(partitions, materializedRows);
+	}
+
+	/**
+	 * Creates a Search from the results of another Search's construction;
+	 * see {@link SearchPlan}.
+	 */
+	Search(Problem problem, Inventory inventory, PruningRules pruningRules, List<Set<Device>> domains,
+			List<Map<Integer, List<List<Device>>>> materializedRows, List<int[]> partitions) {
+		this.inventory = inventory;
+		this.shape = problem.shape();
+		this.emitters = terminals(problem, true);
+		this.receivers = terminals(problem, false);
+		this.truthTableRows = problem.terminals().get(0).values().size();
+		this.pruningRules = pruningRules;
+		this.rules = pruningRules.create(new PruningRule.Context(shape, emitters, receivers, truthTableRows));
+		this.domains = domains;
+		this.rowLengths = shape.rowLengths();
+		this.materializedRows.addAll(materializedRows);
+		this.partitions.addAll(partitions);
+		this.partitionStarts = partitionStarts(partitions, materializedRows);
+	}
+
+	private static ImmutableList<Terminal> terminals(Problem problem, boolean emitters) {
+		return problem.terminals().stream().filter(t -> t.isEmitter() == emitters)
+				.collect(Collectors.collectingAndThen(Collectors.toList(), ImmutableList::copyOf));
+	}
+
+	Inventory inventory() {
+		return inventory;
+	}
+
+	PruningRules pruningRules() {
+		return pruningRules;
+	}
+
+	/**
+	 * Returns this search's pruning rules, whose counts cover this search's
+	 * construction and all its calls to search() so far.  Domain and row
+	 * rules of a Search loaded from a {@link SearchPlan} ran when the plan
+	 * was made, so they count nothing.
+	 */
+	public List<String> pruningReport() {
+		return rules.stream().map(PruningRule::toString).collect(Collectors.toList());
+	}
+
+	List<PruningRule> rules() {
+		return rules;
+	}
+
+	BoardShape shape() {
+		return shape;
+	}
+
+	List<Set<Device>> domains() {
+		return domains;
+	}
+
+	List<Map<Integer, List<List<Device>>>> materializedRows() {
+		return materializedRows;
+	}
+
+	List<int[]> partitions() {
+		return partitions;
+	}
+
+	private static final int MATERIALIZE_CHUNK = 1 << 14;
+	/**
+	 * Returns the given row's instances bucketed by usage key.
+	 */
+	Map<Integer, List<List<Device>>> materialize(List<Set<Device>> row, List<Direction> terminals) {
+		List<List<Device>> product = Lists.cartesianProduct(row.stream().map(ImmutableList::copyOf).collect(Collectors.toList()));
+		int chunks = (product.size() + MATERIALIZE_CHUNK - 1) / MATERIALIZE_CHUNK;
+		List<DenseIntegerMap<List<List<Device>>>> parts = IntStream.range(0, chunks).parallel()
+				.mapToObj(c -> {
+					DenseIntegerMap<List<List<Device>>> part = new DenseIntegerMap<>(inventory.keySpace());
+					List<PruningRule.Check<List<Device>>> checks = rowChecks(terminals);
+					for (int i = c * MATERIALIZE_CHUNK, end = Math.min(i + MATERIALIZE_CHUNK, product.size()); i < end; ++i) {
+						List<Device> instance = product.get(i);
+						if (rejects(checks, instance)) continue;
+						int usage = inventory.keyOf(instance);
+						if (usage < 0) continue;
+						part.computeIfAbsent(usage, k -> new ArrayList<>()).add(ImmutableList.copyOf(instance));
+					}
+					flush(checks);
+					return part;
+				}).collect(Collectors.toList());
+		if (parts.size() == 1) return parts.get(0);
+		DenseIntegerMap<List<List<Device>>> materialization = new DenseIntegerMap<>(inventory.keySpace());
+		for (DenseIntegerMap<List<List<Device>>> part : parts)
+			part.forEach((k, v) -> materialization.computeIfAbsent(k, x -> new ArrayList<>()).addAll(v));
+		return materialization;
+	}
+
+	private Map<Integer, List<List<Device>>> materialize(List<Set<Device>> row, List<Direction> terminals, RowStore.Builder builder) throws IOException {
+		//the builder appends to files, so a row is materialized sequentially
+		List<PruningRule.Check<List<Device>>> checks = rowChecks(terminals);
+		for (List<Device> instance : Sets.cartesianProduct(row)) {
+			if (rejects(checks, instance)) continue;
+			int usage = inventory.keyOf(instance);
+			if (usage < 0) continue;
+			builder.add(usage, instance);
 		}
-		buildPartitions(deviceCount, 0, new ArrayDeque<>(materializedRows.size()), partitions);
+		flush(checks);
+		return builder.build();
+	}
+
+	/**
+	 * Returns the problem's domains pruned by the given rules' domain-level
+	 * rules, without materializing any rows.
+	 */
+	static List<Set<Device>> prunedDomains(Problem problem, PruningRules pruningRules) {
+		List<PruningRule> rules = pruningRules.create(new PruningRule.Context(problem.shape(),
+				terminals(problem, true), terminals(problem, false), problem.terminals().get(0).values().size()));
+		return prune(problem.domains(), rules);
 	}
 
-	private Map<Coordinate, Set<Device>> prune(Map<Coordinate, Set<Device>> input) {
-		Map<Coordinate, Set<Device>> devices = new TreeMap<>();
-		input.forEach((k, v) -> devices.put(k, new HashSet<>(v)));
-		pruneAllOutputsFaceWalls(devices);
-		pruneNoInputFromEmitter(devices);
-		pruneNoOutputToReceiver(devices);
+	private static List<Set<Device>> prune(List<Set<Device>> input, List<PruningRule> rules) {
+		List<Set<Device>> devices = new ArrayList<>(input.size());
+		//keep the file's device order so trial numbering is the same every run
+		for (Set<Device> domain : input)
+			devices.add(new LinkedHashSet<>(domain));
+		for (PruningRule rule : rules)
+			if (rule instanceof PruningRule.DomainRule)
+				((PruningRule.DomainRule)rule).prune(devices);
 		return devices;
 	}
 
-	private void pruneAllOutputsFaceWalls(Map<Coordinate, Set<Device>> device) {
-		List<Device> toBeRemoved = new ArrayList<>();
-		Set<BasicDevice> justWall = EnumSet.of(BasicDevice.WALL);
-		device.forEach((c, s) -> {
-			if (s.contains(BasicDevice.WALL)) return;
-			s.forEach(d -> {
-				if (d.outputs().stream().anyMatch(d.inputs()::contains)) {
-					//empty, mirror, splitter, diffuser, if
-					List<Direction> outputsFacingWalls = d.outputs().stream()
-						.filter(o -> {
-							Coordinate neighbor = c.translate(o);
-							//ignore known-empty cells, as they don't affect the beam
-							while (EnumSet.of(BasicDevice.EMPTY).equals(device.get(neighbor)))
-								neighbor = neighbor.translate(o);
-							return device.get(neighbor).equals(justWall)
-								&& !receivers.containsKey(neighbor)
-								&& !emitters.containsKey(neighbor);
-						}).collect(Collectors.toList());
-					if ((basedOn(d, BasicDevice.MIRROR) || basedOn(d, BasicDevice.IF)) && outputsFacingWalls.size() >= 1)
-						toBeRemoved.add(d);
-					else if ((basedOn(d, BasicDevice.SPLITTER) || basedOn(d, BasicDevice.DIFFUSER)) &&
-							//three sides, or two non-opposing sides
-							(outputsFacingWalls.size() >= 3 || (outputsFacingWalls.size() == 2 && !outputsFacingWalls.get(0).opposite().equals(outputsFacingWalls.get(1)))))
-						toBeRemoved.add(d);
-					//can't remove empty if we're using device-count-limited search
-				} else {
-					//and, or, xor
-					int outputsFacingWalls = (int)d.outputs().stream()
-						.filter(o -> {
-							Coordinate neighbor = c.translate(o);
-							//ignore known-empty cells, as they don't affect the beam
-							while (EnumSet.of(BasicDevice.EMPTY).equals(device.get(neighbor)))
-								neighbor = neighbor.translate(o);
-							return device.get(neighbor).equals(justWall)
-								&& !receivers.containsKey(neighbor);
-								//emitters count as walls when inputs and outputs are disjoint
-						}).count();
-					if (outputsFacingWalls >= 1)
-						toBeRemoved.add(d);
+	/**
+	 * Returns the row rules' checks for a row with the given terminals.
+	 */
+	private List<PruningRule.Check<List<Device>>> rowChecks(List<Direction> terminals) {
+		List<PruningRule.Check<List<Device>>> checks = new ArrayList<>();
+		for (PruningRule rule : rules)
+			if (rule instanceof PruningRule.RowRule)
+				checks.add(((PruningRule.RowRule)rule).rowCheck(terminals));
+		return checks;
+	}
+
+	private static <T> boolean rejects(List<PruningRule.Check<T>> checks, T t) {
+		for (PruningRule.Check<T> c : checks)
+			if (c.test(t))
+				return true;
+		return false;
+	}
+
+	private static <T> void flush(List<PruningRule.Check<T>> checks) {
+		for (PruningRule.Check<T> c : checks)
+			c.flush();
+	}
+
+	/**
+	 * Returns, for each cell of the given row, the direction the terminal
+	 * there faces, or null.
+	 */
+	List<Direction> rowTerminals(int row) {
+		Direction[] terminals = new Direction[rowLengths[row]];
+		for (Terminal t : emitters)
+			if (t.row() == row) terminals[t.col()] = t.dir();
+		for (Terminal t : receivers)
+			if (t.row() == row) terminals[t.col()] = t.dir();
+		return Arrays.asList(terminals);
+	}
+
+	static List<List<Set<Device>>> devicesAsGrid(BoardShape shape, List<Set<Device>> devices) {
+		List<List<Set<Device>>> playfield = new ArrayList<>(shape.rows());
+		for (int r = 0; r < shape.rows(); ++r)
+			playfield.add(new ArrayList<>(devices.subList(shape.rowStart(r), shape.rowStart(r) + shape.rowLength(r))));
+		return playfield;
+	}
+
+	/**
+	 * Returns the combinations of row usage keys that use exactly the
+	 * inventory's total device count.
+	 */
+	List<int[]> computePartitions() {
+		List<int[]> partitions = new ArrayList<>();
+		buildPartitions(0, 0, new ArrayDeque<>(materializedRows.size()), partitions);
+		return partitions;
+	}
+
+	/**
+	 * Enumerates the combinations of row usage keys that use exactly the
+	 * inventory's total device count without exceeding any per-type limit.
+	 */
+	private void buildPartitions(int used, int index, ArrayDeque<Integer> current, List<int[]> partitions) {
+		if (index == materializedRows.size()) {
+			if (inventory.count(used) == inventory.total())
+				partitions.add(current.stream().mapToInt(Integer::intValue).toArray());
+			return;
+		}
+		for (int k : materializedRows.get(index).keySet()) {
+			int sum = inventory.add(used, k);
+			if (sum < 0) continue;
+			current.addLast(k);
+			buildPartitions(sum, index+1, current, partitions);
+			current.removeLast();
+		}
+	}
+
+	/**
+	 * Searches for all solutions, printing them to System.out.
+	 */
+	public SearchStatistics search() throws IOException {
+		return search(Long.MAX_VALUE, SolutionSink.printing(System.out), null);
+	}
+
+	/**
+	 * Searches until the given number of solutions have been found or the
+	 * search space is exhausted.  Workers poll a shared flag, so they stop
+	 * promptly once the limit is reached.
+	 * @param limit the maximum number of solutions to find
+	 * @param sink receives the solutions; not closed by this method
+	 * @param checkpoint if non-null, skip its completed units and periodically
+	 * save progress to it
+	 * @return statistics for the trials checked
+	 */
+	public SearchStatistics search(long limit, SolutionSink sink, Checkpoint checkpoint) throws IOException {
+		return search(Shard.ALL, limit, sink, checkpoint);
+	}
+
+	/**
+	 * Searches one shard of the search space, as
+	 * {@link #search(long, SolutionSink, Checkpoint)}.
+	 */
+	public SearchStatistics search(Shard shard, long limit, SolutionSink sink, Checkpoint checkpoint) throws IOException {
+		return search(shard.begin(countTrials()), shard.end(countTrials()), limit, sink, checkpoint);
+	}
+
+	/**
+	 * Searches the trials with indices in [begin, end), as
+	 * {@link #search(long, SolutionSink, Checkpoint)}.
+	 */
+	public SearchStatistics search(long begin, long end, long limit, SolutionSink sink, Checkpoint checkpoint) throws IOException {
+		return search(begin, end, limit, sink, checkpoint, new SearchControl());
+	}
+
+	/**
+	 * Searches the trials with indices in [begin, end), as
+	 * {@link #search(long, SolutionSink, Checkpoint)}, and lets the given
+	 * control observe and cancel the search.
+	 */
+	public SearchStatistics search(long begin, long end, long limit, SolutionSink sink, Checkpoint checkpoint, SearchControl control) throws IOException {
+		if (begin < 0 || end > countTrials() || begin > end)
+			throw new IllegalArgumentException(String.format("bad range [%d, %d) of %d trials", begin, end, countTrials()));
+		//family sizes count members anywhere in the search space
+		if (control.collapsesFamilies() && (begin != 0 || end != countTrials() || checkpoint != null))
+			throw new IllegalArgumentException("collapsing families requires searching every trial without a checkpoint");
+		if (control.collapsesFamilies() && !(sink instanceof FamilySink))
+			throw new IllegalArgumentException("collapsing families requires a FamilySink, not "+sink.getClass().getName());
+		List<long[]> units = workUnits(begin, end, UNIT_TRIALS);
+		//units never cross partitions, so each partition's units are consecutive
+		int[] unitPartition = new int[units.size()];
+		int partitionCount = 0;
+		for (int i = 0, prev = -1; i < units.size(); ++i) {
+			int p = partitionOf(units.get(i)[0]);
+			if (p != prev) ++partitionCount;
+			unitPartition[i] = partitionCount - 1;
+			prev = p;
+		}
+		Run run = new Run(limit, sink, checkpoint, unitPartition,
+				new SearchStatistics(end - begin, units.size(), partitionCount),
+				control.collectsSimulationStatistics()
+						? new SimulationStatistics(QUIESCENCE_TICKS, truthTableRows, receivers.stream().map(Terminal::coord).collect(Collectors.toList())) : null,
+				control);
+		ScheduledExecutorService checkpointer = null;
+		if (checkpoint != null) {
+			checkpoint.bind(countTrials(), begin, end, UNIT_TRIALS, units.size());
+			for (int i = 0; i < units.size(); ++i)
+				if (checkpoint.isCompleted(i)) {
+					run.completed.set(i);
+					run.stats.trials.add(units.get(i)[1] - units.get(i)[0]);
+					run.unitCompleted(i);
 				}
+			run.stats.resumedTrials = run.stats.trials();
+			run.stats.solutions.add(checkpoint.solutions());
+			run.solutionCount.set(checkpoint.solutions());
+			if (checkpoint.solutions() >= limit) run.stop = true;
+			checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "checkpointer");
+				t.setDaemon(true);
+				return t;
 			});
-			if (!toBeRemoved.isEmpty()) {
-				System.out.println("pruneAllOutputsFaceWalls: pruned "+toBeRemoved+" from "+c);
-				s.removeAll(toBeRemoved);
-				toBeRemoved.clear();
-			}
-		});
-	}
-
-	private void pruneNoOutputToReceiver(Map<Coordinate, Set<Device>> devices) {
-		//Devices adjacent to a receiver in the receiver's direction must have
-		//at least one of their outputs facing the receiver if the receiver is
-		//ever true.
-		receivers.forEach((r, t) -> {
-			if (!t.values().contains(true)) return;
-			Coordinate neighbor = r.translate(t.dir());
-			Set<Device> p = devices.get(neighbor);
-			if (p == null) return;
-			List<Device> toBeRemoved = p.stream().filter(d -> !d.outputs().contains(t.dir().opposite())).collect(Collectors.toList());
-			if (!toBeRemoved.isEmpty()) {
-				System.out.println("pruneNoOutputToReceiver: pruned "+toBeRemoved+" from "+neighbor);
-				p.removeAll(toBeRemoved);
-			}
-		});
-	}
-
-	private void pruneNoInputFromEmitter(Map<Coordinate, Set<Device>> devices) {
-		//Devices adjacent to an emitter in the emitter's direction must have
-		//at least one of their inputs facing the emitter if there is a truth
-		//table row where only that emitter is true and any receiver is true.
-		emitters.forEach((r, t) -> {
-			if (!emitterMustFlow(t)) return;
-			Coordinate neighbor = r.translate(t.dir());
-			//ignore known-empty cells, as they don't affect the beam
-			while (EnumSet.of(BasicDevice.EMPTY).equals(devices.get(neighbor)))
-				neighbor = neighbor.translate(t.dir());
-			Set<Device> p = devices.get(neighbor);
-			if (p == null) return;
-			List<Device> toBeRemoved = p.stream().filter(d -> !d.inputs().contains(t.dir().opposite())).collect(Collectors.toList());
-			if (!toBeRemoved.isEmpty()) {
-				System.out.println("pruneNoInputFromEmitter: pruned "+toBeRemoved+" from "+neighbor);
-				p.removeAll(toBeRemoved);
-			}
-		});
-	}
-
-	private boolean pruneRow(List<Device> row) {
-		return pruneRowGatesFacingOutputs(row) ||
-				pruneUselessSplitterDiffuser(row);
-	}
-
-	private boolean pruneRowGatesFacingOutputs(List<Device> row) {
-		for (int i = 0; i < row.size(); ++i) {
-			Device first = row.get(i);
-			if (!basedOn(first, BasicDevice.AND, BasicDevice.OR, BasicDevice.XOR)) continue;
-			for (int j = i+1; j < row.size(); ++j) {
-				Device second = row.get(j);
-				if (second.equals(BasicDevice.EMPTY)) continue;
-				if (basedOn(second, BasicDevice.IF) && second.outputs().contains(Direction.LEFT)) continue; //horizontal if is okay
-				if (!basedOn(second, BasicDevice.AND, BasicDevice.OR, BasicDevice.XOR)) break;
-				if (first.outputs().contains(Direction.RIGHT) && second.outputs().contains(Direction.LEFT))
-					return true;
-				break;
-			}
+			checkpointer.scheduleWithFixedDelay(() -> {
+				try {
+					run.checkpoint();
+				} catch (IOException ex) {
+					System.err.println("checkpoint failed: "+ex);
+				}
+			}, checkpoint.intervalNanos(), checkpoint.intervalNanos(), TimeUnit.NANOSECONDS);
 		}
-		return false;
+		control.attach(run.stats, run.simulation, () -> run.stop = true);
+		BitSet resumed = (BitSet)run.completed.clone();
+		try {
+			IntStream.range(0, units.size()).parallel()
+					.filter(i -> !resumed.get(i))
+					.forEach(i -> run.enumerate(i, units.get(i)[0], units.get(i)[1]));
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		} finally {
+			if (checkpointer != null)
+				checkpointer.shutdownNow();
+		}
+		if (checkpoint != null) {
+			run.checkpoint();
+			//solutions from unfinished units are outside the checkpoint.  A
+			//resumed search truncates the solution file back to it and reruns
+			//those units, but can't take back printed solutions, so only
+			//deliver them to a file.
+			if (checkpoint.outputLength() >= 0)
+				try {
+					run.deliver(run.unfinished);
+				} catch (UncheckedIOException ex) {
+					throw ex.getCause();
+				}
+		}
+		if (run.signatures != null)
+			run.stats.signatureEvictions.add(run.signatures.evictions());
+		run.stats.finish(run.stats.trials() < end - begin);
+		return run.stats;
 	}
 
-	private boolean pruneUselessSplitterDiffuser(List<Device> row) {
-		//A splitter or diffuser between two opposing devices with no inputs or
-		//outputs facing the splitter/diffuser is useless.
-		for (int i = 0; i < row.size(); ++i) {
-			if (!basedOn(row.get(i), BasicDevice.SPLITTER, BasicDevice.DIFFUSER)) continue;
-			int l, r;
-			for (l = i-1; l >= 0; --l)
-				if (!row.get(l).equals(BasicDevice.EMPTY)) break;
-			for (r = i+1; r < row.size(); ++r)
-				if (!row.get(r).equals(BasicDevice.EMPTY)) break;
-			if (l < 0 || r >= row.size()) continue;
-			Device left = row.get(l), right = row.get(r);
-			if (!left.inputs().contains(Direction.RIGHT) && !left.outputs().contains(Direction.RIGHT) &&
-					!right.inputs().contains(Direction.LEFT) && !right.outputs().contains(Direction.LEFT))
-				return true;
+	/**
+	 * Returns the length of each row of the board.
+	 */
+	public int[] rowLengths() {
+		return rowLengths.clone();
+	}
+
+	public long countTrials() {
+		return partitionStarts[partitions.size()];
+	}
+
+	private static long[] partitionStarts(List<int[]> partitions, List<Map<Integer, List<List<Device>>>> materializedRows) {
+		long[] starts = new long[partitions.size()+1];
+		for (int i = 0; i < partitions.size(); ++i) {
+			long size = 1;
+			for (int r = 0; r < materializedRows.size(); ++r)
+				size = LongMath.checkedMultiply(size, materializedRows.get(r).get(partitions.get(i)[r]).size());
+			starts[i+1] = LongMath.checkedAdd(starts[i], size);
 		}
-		return false;
+		return starts;
 	}
 
-	private boolean emitterMustFlow(Terminal emitter) {
-		for (int ttr = 0; ttr < truthTableRows; ++ttr) {
-			int finalttr = ttr;
-			if (!emitter.values().get(ttr)) continue;
-			if (emitters.values().stream().filter(e -> e != emitter).anyMatch(e -> e.values().get(finalttr))) continue;
-			if (receivers.values().stream().noneMatch(r -> r.values().get(finalttr))) continue;
-			return true;
+	/**
+	 * Returns the partition containing the given trial index.
+	 */
+	private int partitionOf(long trial) {
+		int i = Arrays.binarySearch(partitionStarts, trial);
+		//skip empty partitions sharing this start
+		if (i >= 0) {
+			while (partitionStarts[i+1] == trial) ++i;
+			return i;
 		}
-		return false;
+		return -i - 2;
 	}
 
-	private static boolean basedOn(Device d, BasicDevice first) {
-		BasicDevice b = d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
-		return b == first;
+	/**
+	 * Returns the board of the given trial.
+	 */
+	List<List<Device>> trial(long index) {
+		int partition = partitionOf(index);
+		List<List<List<Device>>> choices = rowChoices(partition);
+		int[] digits = digits(index, partition, choices);
+		List<List<Device>> board = new ArrayList<>(digits.length);
+		for (int i = 0; i < digits.length; ++i)
+			board.add(choices.get(i).get(digits[i]));
+		return board;
 	}
-	private static boolean basedOn(Device d, BasicDevice first, BasicDevice second) {
-		BasicDevice b = d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
-		return b == first || b == second;
+
+	/**
+	 * Returns true if the given board is a solution.
+	 */
+	boolean isSolution(List<List<Device>> board) {
+		return evaluate(board, null) == Outcome.SOLVED;
 	}
-	private static boolean basedOn(Device d, BasicDevice first, BasicDevice second, BasicDevice third) {
-		BasicDevice b = d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
-		return b == first || b == second || b == third;
+
+	/**
+	 * Returns true if the given board is one of this search's trials, that
+	 * is, no domain or row rule pruned it and it uses the inventory.
+	 */
+	boolean isTrial(List<List<Device>> board) {
+		int usage = 0;
+		for (int r = 0; r < shape.rows(); ++r) {
+			List<Device> row = board.get(r);
+			int key = inventory.keyOf(row);
+			if (key < 0) return false;
+			List<List<Device>> instances = materializedRows.get(r).get(key);
+			if (instances == null || !instances.contains(row)) return false;
+			usage = inventory.add(usage, key);
+			if (usage < 0) return false;
+		}
+		return inventory.count(usage) == inventory.total();
 	}
 
-	private static boolean basedOn(Device d, BasicDevice first, BasicDevice... more) {
-		BasicDevice b = d instanceof RotatedDevice ? ((RotatedDevice)d).base() : (BasicDevice)d;
-		if (b == first) return true;
-		for (BasicDevice i : more)
-			if (b == i) return true;
-		return false;
+	/**
+	 * Returns the mixed-radix digits (last row varying fastest) of the given
+	 * trial within its partition.
+	 */
+	private int[] digits(long trial, int partition, List<List<List<Device>>> choices) {
+		int[] digits = new int[choices.size()];
+		long local = trial - partitionStarts[partition];
+		for (int i = digits.length-1; i >= 0; --i) {
+			int radix = choices.get(i).size();
+			digits[i] = (int)(local % radix);
+			local /= radix;
+		}
+		return digits;
+	}
+
+	private List<List<List<Device>>> rowChoices(int partition) {
+		int[] p = partitions.get(partition);
+		List<List<List<Device>>> rowChoices = new ArrayList<>(p.length);
+		for (int i = 0; i < materializedRows.size(); ++i)
+			rowChoices.add(materializedRows.get(i).get(p[i]));
+		return rowChoices;
 	}
 
-	private static List<List<Set<Device>>> devicesAsGrid(Map<Coordinate, Set<Device>> devices) {
-		int rows = devices.keySet().stream().mapToInt(Coordinate::row).max().getAsInt() + 1;
-		List<List<Set<Device>>> playfield = new ArrayList<>(rows);
-		for (int r = 0; r < rows; ++r) {
-			int finalr = r;
-			int cols = devices.keySet().stream().filter(c -> c.row() == finalr).mapToInt(Coordinate::col).max().getAsInt()+1;
-			List<Set<Device>> thisRow = new ArrayList<>(cols);
-			for (int c = 0; c < cols; ++c)
-				thisRow.add(devices.get(Coordinate.at(r, c)));
-			playfield.add(thisRow);
+	private static final long UNIT_TRIALS = 1 << 16;
+	private static final int BATCH_SIZE = 256;
+	/**
+	 * Splits the trial index range [begin, end) into units of at most maxSize
+	 * trials, none crossing a partition boundary.
+	 */
+	private List<long[]> workUnits(long begin, long end, long maxSize) {
+		List<long[]> units = new ArrayList<>();
+		while (begin < end) {
+			long unitEnd = Math.min(Math.min(end, begin + maxSize), partitionStarts[partitionOf(begin)+1]);
+			units.add(new long[]{begin, unitEnd});
+			begin = unitEnd;
 		}
-		return playfield;
+		return units;
 	}
 
-	private void buildPartitions(int target, int index, ArrayDeque<Integer> current, List<int[]> partitions) {
-		if (index == materializedRows.size()) {
-			if (target == 0)
-				partitions.add(current.stream().mapToInt(Integer::intValue).toArray());
-			return;
+	/**
+	 * The state of one call to search().
+	 */
+	private final class Run {
+		private final long limit;
+		private final SolutionSink sink;
+		private final Checkpoint checkpoint;
+		private final SearchStatistics stats;
+		private final AtomicLong solutionCount = new AtomicLong();
+		/**
+		 * Completed units.  Units complete (delivering their solutions and
+		 * setting their bit) under the read lock; checkpoints take the write
+		 * lock to see the solution file and this set agree.
+		 */
+		private final BitSet completed = new BitSet();
+		/**
+		 * Solutions found in units left unfinished when stopping early with a
+		 * checkpoint.
+		 */
+		private final List<List<ImmutableList<Device>>> unfinished = new ArrayList<>();
+		private final ReadWriteLock completionLock = new ReentrantReadWriteLock();
+		/**
+		 * The (run-local) partition of each unit, and the number of units of
+		 * each partition not yet completed.
+		 */
+		private final int[] unitPartition;
+		private final AtomicIntegerArray unitsLeft;
+		private final SimulationStatistics simulation;
+		private final long[][] cellHashes;
+		/**
+		 * The families found so far, or null if not collapsing families.
+		 */
+		private final Families families;
+		/**
+		 * The nogoods learned so far, or null if not learning nogoods.
+		 */
+		private final Nogoods nogoods;
+		/**
+		 * Cached row outcomes, or null if not caching them.
+		 */
+		private final SignatureCache signatures;
+		/**
+		 * The generated or loaded simulator, or null to use the generic one.
+		 */
+		private final RowSimulator rowSimulator;
+		private volatile boolean stop;
+		Run(long limit, SolutionSink sink, Checkpoint checkpoint, int[] unitPartition, SearchStatistics stats, SimulationStatistics simulation, SearchControl control) {
+			this.limit = limit;
+			this.sink = sink;
+			this.checkpoint = checkpoint;
+			this.unitPartition = unitPartition;
+			this.unitsLeft = new AtomicIntegerArray((int)stats.totalPartitions());
+			for (int p : unitPartition)
+				unitsLeft.incrementAndGet(p);
+			this.stats = stats;
+			this.simulation = simulation;
+			this.rowSimulator = simulation != null ? null
+					: control.generatesSimulator() ? generatedSimulator()
+					: control.loadsSimulator() ? loadedSimulator() : null;
+			this.cellHashes = control.collapsesFamilies() || control.learnsNogoods() || control.cachesSignatures() || rowSimulator != null
+					? Cursor.cellHashes(shape.cells()) : null;
+			this.families = control.collapsesFamilies() ? new Families(shape, domains, inventory, materializedRows, cellHashes) : null;
+			this.nogoods = control.learnsNogoods() ? new Nogoods(shape, domains, cellHashes) : null;
+			this.signatures = control.cachesSignatures() ? new SignatureCache(shape, domains, truthTableRows, cellHashes, stats) : null;
+			if (limit <= 0) stop = true;
 		}
-		for (int k : materializedRows.get(index).keySet())
-			if (k <= target) {
-				current.addLast(k);
-				buildPartitions(target-k, index+1, current, partitions);
-				current.removeLast();
+
+		void unitCompleted(int unit) {
+			stats.unitsCompleted.increment();
+			if (unitsLeft.decrementAndGet(unitPartition[unit]) == 0)
+				stats.partitionsCompleted.increment();
+		}
+
+		boolean stopped() {
+			return stop;
+		}
+
+		/**
+		 * Evaluates the trials in [begin, end), which must lie within one
+		 * partition.
+		 */
+		void enumerate(int unit, long begin, long end) {
+			if (stop) return;
+			int partition = partitionOf(begin);
+			List<List<List<Device>>> choices = rowChoices(partition);
+			int[] digits = digits(begin, partition, choices);
+			List<List<Device>> candidate = new ArrayList<>(digits.length);
+			for (int i = 0; i < digits.length; ++i)
+				candidate.add(choices.get(i).get(digits[i]));
+
+			List<List<ImmutableList<Device>>> batch = new ArrayList<>();
+			List<SolutionFamily> familyBatch = new ArrayList<>();
+			//count locally to keep contended adds out of the loop
+			long trial, pruned = 0, unstable = 0, wrongOutput = 0, collapsed = 0, nogood = 0;
+			SimulationStatistics.Recorder rec = simulation != null ? simulation.recorder() : null;
+			List<PruningRule.Check<List<List<Device>>>> checks = new ArrayList<>();
+			for (PruningRule rule : rules)
+				if (rule instanceof PruningRule.CandidateRule)
+					checks.add(((PruningRule.CandidateRule)rule).candidateCheck(rowLengths));
+			Cursor cursor = cellHashes != null ? new Cursor(shape, cellHashes, candidate) : null;
+			Trace trace = cursor != null ? new Trace(truthTableRows, shape.cells()) : null;
+			for (trial = begin; trial < end && !stop; ++trial) {
+				//trailing rows whose every combination shares this trial's fate,
+				//and the count those combinations are added to when skipped
+				int freeRows = 0;
+				boolean skippingMembers = false;
+				SolutionFamily family = families != null ? families.find(cursor) : null;
+				int known = family == null && nogoods != null ? nogoods.find(cursor) : -1;
+				if (family != null) {
+					++collapsed;
+					freeRows = family.freeRows;
+					skippingMembers = true;
+				} else if (known >= 0) {
+					++nogood;
+					freeRows = known;
+				} else {
+					Outcome outcome;
+					if (rejects(checks, candidate))
+						outcome = Outcome.PRUNED;
+					else {
+						outcome = evaluate(candidate, rec, trace, cursor, signatures, rowSimulator);
+						if (rec != null) ++rec.evaluations;
+					}
+					if (outcome == Outcome.PRUNED)
+						++pruned;
+					else if (outcome == Outcome.UNSTABLE || outcome == Outcome.WRONG_OUTPUT) {
+						if (outcome == Outcome.UNSTABLE)
+							++unstable;
+						else
+							++wrongOutput;
+						if (nogoods != null)
+							freeRows = nogoods.learn(cursor, trace);
+					} else if (families != null) {
+						family = families.add(cursor, candidate, trace);
+						if (family != null) {
+							freeRows = family.freeRows;
+							skippingMembers = true;
+						}
+						if (family != null && accept()) {
+							familyBatch.add(family);
+							if (familyBatch.size() == BATCH_SIZE)
+								deliverFamilies(familyBatch);
+						}
+					} else if (accept()) {
+						batch.add(copy(candidate));
+						//with a checkpoint, deliver only complete units
+						if (batch.size() == BATCH_SIZE && checkpoint == null)
+							deliver(batch);
+					}
+				}
+				if (freeRows > 0) {
+					//jump to the last combination of the free rows (the
+					//increment carries out of them)
+					long skip = 0, weight = 1;
+					for (int i = digits.length-1; i >= digits.length - freeRows; --i) {
+						int radix = choices.get(i).size();
+						skip += (radix - 1 - digits[i]) * weight;
+						weight *= radix;
+						digits[i] = radix - 1;
+					}
+					skip = Math.min(skip, end - 1 - trial);
+					trial += skip;
+					if (skippingMembers)
+						collapsed += skip;
+					else
+						nogood += skip;
+				}
+				for (int i = digits.length-1; i >= 0; --i) {
+					boolean carry = ++digits[i] == choices.get(i).size();
+					if (carry) digits[i] = 0;
+					candidate.set(i, choices.get(i).get(digits[i]));
+					if (cursor != null) cursor.setRow(i, candidate.get(i));
+					if (!carry) break;
+				}
 			}
-	}
+			stats.trials.add(trial - begin);
+			stats.rejectedPruned.add(pruned);
+			flush(checks);
+			stats.rejectedUnstable.add(unstable);
+			stats.rejectedWrongOutput.add(wrongOutput);
+			stats.collapsed.add(collapsed);
+			stats.rejectedNogood.add(nogood);
+			if (trial < end) {
+				//a checkpoint records only complete units, so a resumed search
+				//reruns this one; hold its solutions until after the final
+				//checkpoint (see search())
+				if (checkpoint != null)
+					synchronized (unfinished) {
+						unfinished.addAll(batch);
+					}
+				else {
+					deliver(batch);
+					deliverFamilies(familyBatch);
+				}
+				return;
+			}
+			completionLock.readLock().lock();
+			try {
+				deliver(batch);
+				deliverFamilies(familyBatch);
+				synchronized (completed) {
+					completed.set(unit);
+				}
+			} finally {
+				completionLock.readLock().unlock();
+			}
+			unitCompleted(unit);
+		}
 
-	public void search() {
-		List<List<ImmutableList<Device>>> solutions = partitions.parallelStream()
-				.flatMap(p -> {
-					List<List<ImmutableList<Device>>> rowChoices = new ArrayList<>();
-					for (int i = 0; i < materializedRows.size(); ++i)
-						rowChoices.add(materializedRows.get(i).get(p[i]));
-					return Lists.cartesianProduct(rowChoices).stream();
-				}).filter(this::evaluate)
-				.peek(System.out::println)
-				.collect(Collectors.toList());
-		System.out.println(solutions.size());
+		void checkpoint() throws IOException {
+			BitSet snapshot;
+			long solutions, outputLength;
+			completionLock.writeLock().lock();
+			try {
+				outputLength = sink.sync();
+				synchronized (completed) {
+					snapshot = (BitSet)completed.clone();
+				}
+				solutions = stats.solutions();
+			} finally {
+				completionLock.writeLock().unlock();
+			}
+			checkpoint.save(snapshot, solutions, outputLength);
+		}
+
+		/**
+		 * Counts a solution against the limit, returning false if it's over.
+		 */
+		private boolean accept() {
+			long count = solutionCount.incrementAndGet();
+			if (count >= limit) stop = true;
+			return count <= limit;
+		}
+
+		private void deliver(List<List<ImmutableList<Device>>> batch) {
+			if (batch.isEmpty()) return;
+			try {
+				sink.accept(batch);
+			} catch (IOException ex) {
+				stop = true;
+				throw new UncheckedIOException(ex);
+			}
+			stats.solutions.add(batch.size());
+			batch.clear();
+		}
+
+		private void deliverFamilies(List<SolutionFamily> batch) {
+			if (batch.isEmpty()) return;
+			try {
+				((FamilySink)sink).acceptFamilies(batch);
+			} catch (IOException ex) {
+				stop = true;
+				throw new UncheckedIOException(ex);
+			}
+			stats.families.add(batch.size());
+			stats.solutions.add(batch.stream().mapToLong(SolutionFamily::size).sum());
+			batch.clear();
+		}
 	}
 
-	public long countTrials() {
-		long count = partitions.parallelStream()
-			.mapToLong(p -> {
-				List<List<ImmutableList<Device>>> rowChoices = new ArrayList<>();
-				for (int i = 0; i < materializedRows.size(); ++i)
-					rowChoices.add(materializedRows.get(i).get(p[i]));
-				return Lists.cartesianProduct(rowChoices).size();
-			}).sum();
-		return count;
+	static List<ImmutableList<Device>> copy(List<List<Device>> candidate) {
+		ImmutableList.Builder<ImmutableList<Device>> builder = ImmutableList.builder();
+		for (List<Device> row : candidate)
+			builder.add(ImmutableList.copyOf(row)); //no-op for heap rows
+		return builder.build();
 	}
 
+	enum Outcome {SOLVED, PRUNED, UNSTABLE, WRONG_OUTPUT}
 	private static final int QUIESCENCE_TICKS = 100;
-	private boolean evaluate(List<ImmutableList<Device>> devices) {
+	private static final LaserDirection NO_BEAM = LaserDirection.make(false, false, false, false);
+	private Outcome evaluate(List<List<Device>> devices, SimulationStatistics.Recorder rec) {
+		return evaluate(devices, rec, null, null, null, null);
+	}
+
+	private RowSimulator generatedSimulator;
+	private boolean generationAttempted;
+	/**
+	 * Returns this search's generated simulator, compiling it on first use,
+	 * or null if there's no Java compiler to compile it.
+	 */
+	private synchronized RowSimulator generatedSimulator() {
+		if (!generationAttempted) {
+			generationAttempted = true;
+			generatedSimulator = RowSimulatorCompiler.compile(shape, domains, emitters, receivers, truthTableRows, QUIESCENCE_TICKS);
+			if (generatedSimulator == null)
+				System.err.println("no Java compiler available; using the generic simulator");
+		}
+		return generatedSimulator;
+	}
+
+	private RowSimulator loadedSimulator;
+	private boolean loadAttempted;
+	/**
+	 * Returns a simulator from the first {@link RowSimulatorProvider} on the
+	 * classpath that can run in this JVM, or null if none can.
+	 */
+	private synchronized RowSimulator loadedSimulator() {
+		if (!loadAttempted) {
+			loadAttempted = true;
+			for (RowSimulatorProvider provider : ServiceLoader.load(RowSimulatorProvider.class)) {
+				loadedSimulator = provider.create(shape, domains, emitters, receivers, truthTableRows, QUIESCENCE_TICKS);
+				if (loadedSimulator != null) break;
+			}
+		}
+		return loadedSimulator;
+	}
+
+	/**
+	 * Evaluates the given candidate on each row of the truth table, stopping
+	 * at the first rejection.
+	 * @param rec if non-null, receives simulation statistics
+	 * @param trace if non-null, cleared and then filled in
+	 * @param cursor the candidate's cursor, if signatures is non-null
+	 * @param signatures if non-null, consulted for and updated with each
+	 * row's outcome (requiring a trace)
+	 * @param rowSimulator if non-null and rec is null, used to simulate rows
+	 * (requiring a trace and cursor)
+	 */
+	private Outcome evaluate(List<List<Device>> devices, SimulationStatistics.Recorder rec, Trace trace,
+			Cursor cursor, SignatureCache signatures, RowSimulator rowSimulator) {
+		if (trace != null) trace.clear();
 		LaserDirection[][] prev = new LaserDirection[devices.size()][], next = new LaserDirection[devices.size()][];
 		for (int i = 0; i < prev.length; ++i) {
 			prev[i] = new LaserDirection[devices.get(i).size()];
 			next[i] = prev[i].clone();
 		}
+		int[] a = null, b = null;
 
 		for (int ttr = 0; ttr < truthTableRows; ++ttr) {
-			for (LaserDirection[] n : next)
-				Arrays.fill(n, LaserDirection.make(false, false, false, false));
-			enforceEmitters(next, ttr);
-
-			int ticks = 0;
-			do {
-				LaserDirection[][] swaptemp = prev;
-				prev = next;
-				next = swaptemp;
-
-				for (int r = 0; r < next.length; ++r)
-					for (int c = 0; c < next[r].length; ++c) {
-						//TODO: we can get rid of the boundary of walls if we're
-						//willing to check emitters in the loop.
-						LaserDirection input = LaserDirection.make(getInput(prev, r, c, Direction.UP),
-								getInput(prev, r, c, Direction.RIGHT),
-								getInput(prev, r, c, Direction.DOWN),
-								getInput(prev, r, c, Direction.LEFT));
-						next[r][c] = devices.get(r).get(c).operate(input);
-					}
-
-				enforceEmitters(next, ttr);
-			} while (!Arrays.deepEquals(prev, next) && ++ticks < QUIESCENCE_TICKS);
-			if (ticks >= QUIESCENCE_TICKS)
-				return false; //did not quiesce
-			if (!checkReceivers(next, ttr))
-				return false;
+			Outcome cached = signatures != null ? signatures.lookup(ttr, cursor, trace) : null;
+			if (cached == Outcome.SOLVED)
+				continue;
+			if (cached != null) {
+				trace.reject(ttr);
+				return cached;
+			}
+			if (rowSimulator != null && rec == null) {
+				if (a == null) {
+					a = new int[shape.cells()];
+					b = new int[shape.cells()];
+				}
+				int result = rowSimulator.simulate(ttr, cursor.codes, a, b, trace.lit(ttr), trace.generation());
+				Outcome outcome = result == RowSimulator.PASSED ? Outcome.SOLVED
+						: result == RowSimulator.UNSTABLE ? Outcome.UNSTABLE : Outcome.WRONG_OUTPUT;
+				if (signatures != null) signatures.put(ttr, cursor, trace, outcome);
+				if (outcome != Outcome.SOLVED) {
+					trace.reject(ttr);
+					return outcome;
+				}
+				continue;
+			}
+			LaserDirection[][] state = simulate(devices, emitters, ttr, prev, next, rec, trace);
+			if (rec != null) ++rec.simulations;
+			if (state == null) {
+				if (trace != null) trace.reject(ttr);
+				if (signatures != null) signatures.put(ttr, cursor, trace, Outcome.UNSTABLE);
+				if (rec != null) {
+					++rec.timeouts;
+					++rec.unstableByRow[ttr];
+				}
+				return Outcome.UNSTABLE; //did not quiesce
+			}
+			int wrong = checkReceivers(state, ttr);
+			if (wrong >= 0) {
+				if (trace != null) trace.reject(ttr);
+				if (signatures != null) signatures.put(ttr, cursor, trace, Outcome.WRONG_OUTPUT);
+				if (rec != null) {
+					++rec.wrongOutputByRow[ttr];
+					++rec.wrongOutputByReceiver[wrong];
+				}
+				return Outcome.WRONG_OUTPUT;
+			}
+			if (signatures != null) signatures.put(ttr, cursor, trace, Outcome.SOLVED);
 		}
 
-		return true;
+		return Outcome.SOLVED;
+	}
+
+	/**
+	 * Simulates the given board with the emitters set for the given truth
+	 * table row until it quiesces, using prev and next as scratch space.
+	 * @param trace if non-null, records the cells receiving input on any tick
+	 * @return the quiesced state (one of prev or next), or null if the board
+	 * did not quiesce
+	 */
+	private static LaserDirection[][] simulate(List<List<Device>> devices, Collection<Terminal> emitters, int ttr,
+			LaserDirection[][] prev, LaserDirection[][] next, SimulationStatistics.Recorder rec, Trace trace) {
+		for (LaserDirection[] n : next)
+			Arrays.fill(n, NO_BEAM);
+		enforceEmitters(emitters, next, ttr);
+
+		int ticks = 0;
+		do {
+			LaserDirection[][] swaptemp = prev;
+			prev = next;
+			next = swaptemp;
+
+			//cells are indexed in row-major order
+			for (int r = 0, cell = 0; r < next.length; ++r)
+				for (int c = 0; c < next[r].length; ++c, ++cell) {
+					//TODO: we can get rid of the boundary of walls if we're
+					//willing to check emitters in the loop.
+					LaserDirection input = LaserDirection.make(getInput(prev, r, c, Direction.UP),
+							getInput(prev, r, c, Direction.RIGHT),
+							getInput(prev, r, c, Direction.DOWN),
+							getInput(prev, r, c, Direction.LEFT));
+					if (trace != null && input != NO_BEAM) trace.light(ttr, cell);
+					next[r][c] = devices.get(r).get(c).operate(input);
+				}
+
+			enforceEmitters(emitters, next, ttr);
+			if (rec != null) {
+				++rec.ticks;
+				for (LaserDirection[] n : next)
+					for (LaserDirection d : n)
+						if (d != NO_BEAM) ++rec.activeCells;
+			}
+		} while (!Arrays.deepEquals(prev, next) && ++ticks < QUIESCENCE_TICKS);
+		if (ticks >= QUIESCENCE_TICKS)
+			return null;
+		if (rec != null) ++rec.ticksToQuiescence[ticks];
+		return next;
+	}
+
+	/**
+	 * Returns the value each of the given problem's receivers (in terminal
+	 * order) sees on the given board for each row of its truth table, ignoring
+	 * the receivers' expected values, or null if the board doesn't quiesce.
+	 */
+	static boolean[][] receiverValues(Problem problem, List<List<Device>> board) {
+		List<Terminal> emitters = problem.terminals().stream().filter(Terminal::isEmitter).collect(Collectors.toList());
+		List<Terminal> receivers = problem.terminals().stream().filter(Terminal::isReceiver).collect(Collectors.toList());
+		int rows = problem.terminals().get(0).values().size();
+		LaserDirection[][] prev = new LaserDirection[board.size()][], next = new LaserDirection[board.size()][];
+		for (int i = 0; i < prev.length; ++i) {
+			prev[i] = new LaserDirection[board.get(i).size()];
+			next[i] = prev[i].clone();
+		}
+		boolean[][] values = new boolean[rows][receivers.size()];
+		for (int ttr = 0; ttr < rows; ++ttr) {
+			LaserDirection[][] state = simulate(board, emitters, ttr, prev, next, null, null);
+			if (state == null) return null;
+			for (int i = 0; i < receivers.size(); ++i) {
+				Terminal t = receivers.get(i);
+				values[ttr][i] = getInput(state, t.row(), t.col(), t.dir());
+			}
+		}
+		return values;
 	}
 
 	private static boolean getInput(LaserDirection[][] state, int r, int c, Direction d) {
@@ -359,22 +1047,202 @@ public final class Search {
 		throw new AssertionError("unreachable");
 	}
 
-	private void enforceEmitters(LaserDirection[][] state, int ttr) {
-		for (Terminal t : emitters.values())
+	private static void enforceEmitters(Collection<Terminal> emitters, LaserDirection[][] state, int ttr) {
+		for (Terminal t : emitters)
 			state[t.row()][t.col()] = state[t.row()][t.col()].set(t.dir(), t.values().get(ttr));
 	}
 
-	private boolean checkReceivers(LaserDirection[][] state, int ttr) {
-		for (Terminal t : receivers.values())
+	/**
+	 * Returns the index (in receivers) of the first receiver getting
+	 * the wrong value, or -1 if all are correct.
+	 */
+	private int checkReceivers(LaserDirection[][] state, int ttr) {
+		for (int i = 0; i < receivers.size(); ++i) {
+			Terminal t = receivers.get(i);
 			if (getInput(state, t.row(), t.col(), t.dir()) != t.values().get(ttr))
-				return false;
-		return true;
+				return i;
+		}
+		return -1;
 	}
 
 	public static void main(String[] args) throws IOException {
 		Problem problem = Problem.fromFile(Paths.get(args[0]));
-		Search search = new Search(problem, Integer.valueOf(args[1]));
+		int deviceCount = Integer.valueOf(args[1]);
+		Inventory inventory = Inventory.of(deviceCount);
+		long limit = Long.MAX_VALUE;
+		Path output = null, checkpointPath = null, statsPath = null;
+		Shard shard = Shard.ALL;
+		Path cacheDir = null, planPath = null, rowStoreDir = null, simulationStatsPath = null;
+		long cacheMaxBytes = 1L << 30;
+		long checkpointInterval = 60, progressInterval = 10;
+		boolean resume = false, families = false, nogoods = false, signatures = false, generate = false, load = true;
+		PruningRules rules = PruningRules.defaults();
+		for (int i = 2; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--inventory":
+					inventory = Inventory.parse(args[++i], deviceCount);
+					break;
+				case "--rules":
+					rules = PruningRules.parse(args[++i]);
+					break;
+				case "--first":
+					limit = 1;
+					break;
+				case "--limit":
+					limit = Long.parseLong(args[++i]);
+					break;
+				case "--output":
+					output = Paths.get(args[++i]);
+					break;
+				case "--checkpoint":
+					checkpointPath = Paths.get(args[++i]);
+					break;
+				case "--checkpoint-interval":
+					checkpointInterval = Long.parseLong(args[++i]);
+					break;
+				case "--resume":
+					resume = true;
+					break;
+				case "--shard":
+					shard = Shard.parse(args[++i]);
+					break;
+				case "--progress":
+					progressInterval = Long.parseLong(args[++i]);
+					break;
+				case "--simulation-stats":
+					simulationStatsPath = Paths.get(args[++i]);
+					break;
+				case "--stats":
+					statsPath = Paths.get(args[++i]);
+					break;
+				case "--plan":
+					planPath = Paths.get(args[++i]);
+					break;
+				case "--row-store":
+					rowStoreDir = Paths.get(args[++i]);
+					break;
+				case "--cache":
+					cacheDir = Paths.get(args[++i]);
+					break;
+				case "--cache-max-bytes":
+					cacheMaxBytes = Long.parseLong(args[++i]);
+					break;
+				case "--families":
+					families = true;
+					break;
+				case "--nogoods":
+					nogoods = true;
+					break;
+				case "--signature-cache":
+					signatures = true;
+					break;
+				case "--generate-simulator":
+					generate = true;
+					break;
+				case "--generic-simulator":
+					load = false;
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option: "+args[i]);
+			}
+		}
+		//families are printed with wildcards, which the other outputs can't hold
+		if (families && (output != null || cacheDir != null || checkpointPath != null || shard != Shard.ALL))
+			throw new IllegalArgumentException("--families can't be combined with --output, --cache, --checkpoint or --shard");
+		SolutionCache cache = null;
+		String puzzleHash = null, cacheKey = null;
+		if (cacheDir != null) {
+			if (shard != Shard.ALL || checkpointPath != null)
+				throw new IllegalArgumentException("--cache can't be combined with --shard or --checkpoint");
+			//non-default rules may be experiments, so don't let them near the cache
+			if (!rules.isDefault())
+				throw new IllegalArgumentException("--cache can't be combined with non-default --rules");
+			cache = new SolutionCache(cacheDir, cacheMaxBytes);
+			puzzleHash = SolutionCache.puzzleHash(problem);
+			cacheKey = SolutionCache.key(puzzleHash, inventory, rules);
+			Properties hit = cache.lookup(cacheKey);
+			if (hit != null) {
+				int[] rowLengths;
+				try (SolutionFile.Reader r = SolutionFile.open(cache.solutions(cacheKey))) {
+					rowLengths = r.rowLengths();
+				}
+				long replayed;
+				try (SolutionSink s = output != null ? SolutionFile.create(output, rowLengths) : SolutionSink.printing(System.out)) {
+					replayed = SolutionFile.copy(cache.solutions(cacheKey), rowLengths, limit, s);
+				}
+				System.out.println("cache hit, "+replayed+" solutions replayed: "+SearchStatistics.merge(Collections.singletonList(hit)));
+				cache.minimalDeviceCount(puzzleHash, inventory, rules).ifPresent(m -> System.out.println("minimal device count: "+m));
+				return;
+			}
+		}
+
+		//a loaded plan is itself mapped, so it needs no separate row store
+		Search search = planPath != null ? SearchPlan.load(planPath, problem, inventory, rules, rowStoreDir != null) : null;
+		if (search == null) {
+			search = new Search(problem, inventory, rowStoreDir != null ? new RowStore(rowStoreDir) : null, rules);
+			if (planPath != null)
+				SearchPlan.write(search, problem, planPath);
+		} else
+			System.out.println("loaded plan "+planPath);
+		for (int i = 0; i < search.domains().size(); ++i)
+			System.out.format("%s: %s%n", search.shape().coordinate(i), search.domains().get(i));
 		System.out.println(search.countTrials()+" states to check");
-		search.search();
+		Checkpoint checkpoint = null;
+		if (checkpointPath != null) {
+			String searchKey = SolutionCache.key(SolutionCache.puzzleHash(problem), inventory, rules);
+			checkpoint = resume ? Checkpoint.resume(checkpointPath, searchKey, checkpointInterval, TimeUnit.SECONDS)
+					: Checkpoint.create(checkpointPath, searchKey, checkpointInterval, TimeUnit.SECONDS);
+		} else if (resume)
+			throw new IllegalArgumentException("--resume requires --checkpoint");
+		SolutionSink sink;
+		if (output == null)
+			sink = SolutionSink.printing(System.out);
+		else if (checkpoint != null && checkpoint.outputLength() >= 0)
+			sink = SolutionFile.append(output, search.rowLengths(), checkpoint.outputLength());
+		else
+			sink = SolutionFile.create(output, search.rowLengths());
+		SolutionCache.Pending pending = null;
+		if (cache != null) {
+			pending = cache.begin(cacheKey, search.rowLengths());
+			sink = SolutionSink.both(sink, pending);
+		}
+		SearchStatistics stats;
+		SearchControl control = new SearchControl();
+		if (simulationStatsPath != null)
+			control.collectSimulationStatistics();
+		if (families)
+			control.collapseFamilies();
+		if (generate)
+			control.generateSimulator();
+		control.learnNogoods(nogoods).cacheSignatures(signatures).loadSimulator(load);
+		try (SolutionSink s = sink; SearchMonitor monitor = new SearchMonitor(control).register()) {
+			if (progressInterval > 0)
+				monitor.report(System.err, progressInterval, TimeUnit.SECONDS);
+			long trials = search.countTrials();
+			stats = search.search(shard.begin(trials), shard.end(trials), limit, s, checkpoint, control);
+		} catch (IOException | RuntimeException ex) {
+			if (pending != null) pending.abort();
+			throw ex;
+		}
+		System.out.println(stats);
+		if (stats.signatureLookups() > 0)
+			System.out.format("signature cache: %d/%d rows hit (%.1f%%), %d evictions%n", stats.signatureHits(),
+					stats.signatureLookups(), 100 * stats.signatureHitRate(), stats.signatureEvictions());
+		search.pruningReport().forEach(System.out::println);
+		if (pending != null) {
+			if (stats.stoppedEarly())
+				pending.abort();
+			else
+				pending.commit(SolutionCache.describe(stats, puzzleHash, inventory, rules));
+			cache.minimalDeviceCount(puzzleHash, inventory, rules).ifPresent(m -> System.out.println("minimal device count: "+m));
+		}
+		if (simulationStatsPath != null)
+			control.simulationStatistics().writeJson(simulationStatsPath);
+		if (statsPath != null) {
+			Properties p = stats.toProperties();
+			p.setProperty("puzzleTrials", Long.toString(search.countTrials()));
+			p.setProperty("shard", shard.toString());
+			SearchStatistics.store(p, statsPath);
+		}
 	}
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+/**
+ * Lets other threads observe and cancel a running search.  Pass one to
+ * {@link Search#search(long, long, long, SolutionSink, Checkpoint, SearchControl)};
+ * each control should be used for only one search.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SearchControl {
+	private volatile boolean cancelled;
+	private volatile SearchStatistics statistics;
+	private volatile Runnable stopper;
+	private volatile boolean simulate, families, nogoods, signatures, generate, load = true;
+	private volatile SimulationStatistics simulation;
+	public SearchControl() {}
+
+	/**
+	 * Asks the search to collect {@link SimulationStatistics}, at some cost
+	 * in speed.  Call before starting the search.
+	 */
+	public SearchControl collectSimulationStatistics() {
+		this.simulate = true;
+		return this;
+	}
+
+	boolean collectsSimulationStatistics() {
+		return simulate;
+	}
+
+	/**
+	 * Asks the search to deliver {@link SolutionFamily solution families}
+	 * instead of solutions, counting each family's members without
+	 * enumerating them where it can.  The search must cover the whole search
+	 * space without a checkpoint, its sink must be a {@link FamilySink}, and
+	 * the solution limit counts families.  Call before starting the search.
+	 */
+	public SearchControl collapseFamilies() {
+		this.families = true;
+		return this;
+	}
+
+	boolean collapsesFamilies() {
+		return families;
+	}
+
+	/**
+	 * Sets whether the search learns nogoods from rejected candidates to
+	 * skip other candidates sharing them without simulation (by default, it
+	 * doesn't).  Call before starting the search.
+	 */
+	public SearchControl learnNogoods(boolean learn) {
+		this.nogoods = learn;
+		return this;
+	}
+
+	boolean learnsNogoods() {
+		return nogoods;
+	}
+
+	/**
+	 * Sets whether the search caches each truth table row's outcome by the
+	 * devices its beams visited, to skip simulating rows whose outcome is
+	 * known (by default, it doesn't).  Call before starting the search.
+	 */
+	public SearchControl cacheSignatures(boolean cache) {
+		this.signatures = cache;
+		return this;
+	}
+
+	boolean cachesSignatures() {
+		return signatures;
+	}
+
+	/**
+	 * Asks the search to simulate with code generated for and compiled
+	 * against its puzzle, if a Java compiler is available.  Generation takes
+	 * a second or so, paying off only on long searches.  Ignored when
+	 * collecting simulation statistics.  Call before starting the search.
+	 */
+	public SearchControl generateSimulator() {
+		this.generate = true;
+		return this;
+	}
+
+	boolean generatesSimulator() {
+		return generate;
+	}
+
+	/**
+	 * Sets whether the search simulates with a simulator from a
+	 * {@link RowSimulatorProvider} on the classpath, if one can run in this
+	 * JVM (the default).  A {@link #generateSimulator() generated simulator}
+	 * takes precedence.  Call before starting the search.
+	 */
+	public SearchControl loadSimulator(boolean load) {
+		this.load = load;
+		return this;
+	}
+
+	boolean loadsSimulator() {
+		return load;
+	}
+
+	/**
+	 * Called by the search once it's ready to run.
+	 */
+	synchronized void attach(SearchStatistics statistics, SimulationStatistics simulation, Runnable stopper) {
+		this.statistics = statistics;
+		this.simulation = simulation;
+		this.stopper = stopper;
+		if (cancelled)
+			stopper.run();
+	}
+
+	/**
+	 * Stops the search as soon as its workers notice, or prevents it from
+	 * starting if it hasn't yet.  The search returns normally, with
+	 * statistics for the trials it checked.
+	 */
+	public synchronized void cancel() {
+		cancelled = true;
+		if (stopper != null)
+			stopper.run();
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns the live statistics of the search, or null if it hasn't
+	 * started.
+	 */
+	public SearchStatistics statistics() {
+		return statistics;
+	}
+
+	/**
+	 * Returns the simulation statistics of the search, or null if it hasn't
+	 * started or they weren't requested.
+	 */
+	public SimulationStatistics simulationStatistics() {
+		return simulation;
+	}
+}
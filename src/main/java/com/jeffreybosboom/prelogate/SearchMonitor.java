@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes a search's live statistics as a JMX MBean (named
+ * com.jeffreybosboom.prelogate:type=Search,id=n) and optionally prints a
+ * periodic progress line.  Reading statistics sums their counters, so
+ * monitoring costs the search nothing between reads.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SearchMonitor implements SearchMonitorMBean, AutoCloseable {
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+	private final SearchControl control;
+	private ObjectName name;
+	private ScheduledExecutorService reporter;
+	public SearchMonitor(SearchControl control) {
+		this.control = control;
+	}
+
+	/**
+	 * Registers this monitor with the platform MBean server.
+	 */
+	public SearchMonitor register() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			name = new ObjectName("com.jeffreybosboom.prelogate:type=Search,id="+NEXT_ID.getAndIncrement());
+			server.registerMBean(this, name);
+		} catch (JMException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return this;
+	}
+
+	/**
+	 * Prints a progress line to the given stream at the given interval until
+	 * this monitor is closed.
+	 */
+	public SearchMonitor report(PrintStream out, long interval, TimeUnit unit) {
+		reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "progress-reporter");
+			t.setDaemon(true);
+			return t;
+		});
+		reporter.scheduleAtFixedRate(() -> {
+			SearchStatistics stats = control.statistics();
+			if (stats != null)
+				out.println("progress: "+stats.progressLine());
+		}, interval, interval, unit);
+		return this;
+	}
+
+	private long read(ToLongFunction<SearchStatistics> f) {
+		SearchStatistics stats = control.statistics();
+		return stats != null ? f.applyAsLong(stats) : 0;
+	}
+
+	@Override
+	public long getTrials() {
+		return read(SearchStatistics::trials);
+	}
+	@Override
+	public long getTotalTrials() {
+		return read(SearchStatistics::totalTrials);
+	}
+	@Override
+	public double getTrialsPerSecond() {
+		SearchStatistics stats = control.statistics();
+		return stats != null ? stats.trialsPerSecond() : 0;
+	}
+	@Override
+	public long getSolutions() {
+		return read(SearchStatistics::solutions);
+	}
+	@Override
+	public long getPartitionsCompleted() {
+		return read(SearchStatistics::partitionsCompleted);
+	}
+	@Override
+	public long getTotalPartitions() {
+		return read(SearchStatistics::totalPartitions);
+	}
+	@Override
+	public long getRejectedPruned() {
+		return read(SearchStatistics::rejectedPruned);
+	}
+	@Override
+	public long getRejectedNogood() {
+		return read(SearchStatistics::rejectedNogood);
+	}
+	@Override
+	public long getRejectedUnstable() {
+		return read(SearchStatistics::rejectedUnstable);
+	}
+	@Override
+	public long getRejectedWrongOutput() {
+		return read(SearchStatistics::rejectedWrongOutput);
+	}
+	@Override
+	public long getSignatureHits() {
+		return read(SearchStatistics::signatureHits);
+	}
+	@Override
+	public double getElapsedSeconds() {
+		return read(SearchStatistics::elapsedNanos) / 1e9;
+	}
+	@Override
+	public double getEtaSeconds() {
+		SearchStatistics stats = control.statistics();
+		long eta = stats != null ? stats.etaNanos() : -1;
+		return eta < 0 ? -1 : eta / 1e9;
+	}
+	@Override
+	public boolean isCancelled() {
+		return control.isCancelled();
+	}
+	@Override
+	public void cancel() {
+		control.cancel();
+	}
+
+	/**
+	 * Stops reporting and unregisters this monitor.
+	 */
+	@Override
+	public void close() {
+		if (reporter != null)
+			reporter.shutdownNow();
+		if (name != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			} catch (JMException ex) {
+				//already gone
+			}
+			name = null;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+/**
+ * The JMX view of a running search; see {@link SearchMonitor}.  Attributes
+ * read as zero (or -1 for the ETA) before the search starts.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public interface SearchMonitorMBean {
+	long getTrials();
+	long getTotalTrials();
+	double getTrialsPerSecond();
+	long getSolutions();
+	long getPartitionsCompleted();
+	long getTotalPartitions();
+	long getRejectedPruned();
+	long getRejectedNogood();
+	long getRejectedUnstable();
+	long getRejectedWrongOutput();
+	long getSignatureHits();
+	double getElapsedSeconds();
+	/**
+	 * Returns the estimated seconds until the search finishes, or -1 if
+	 * unknown.
+	 */
+	double getEtaSeconds();
+	boolean isCancelled();
+	void cancel();
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Search's pruned domains, materialized rows and partitions saved to a
+ * file, so rerunning, resuming or sharding a puzzle skips construction.
+ * The file records the puzzle's {@link SolutionCache#puzzleHash(Problem)
+ * hash}, the inventory and the pruning rules, so a stale plan is detected
+ * rather than used.
+ * Rows are stored as fixed-width records of {@link DeviceList} codes, one
+ * copy per distinct materialization.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SearchPlan {
+	private static final int MAGIC = 0x504c4750; //"PLGP"
+	private static final int VERSION = 2;
+	private SearchPlan() {}
+
+	/**
+	 * Saves the given search's plan to the given path.
+	 */
+	public static void write(Search search, Problem problem, Path path) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName()+".tmp");
+		try (FileOutputStream fos = new FileOutputStream(temp.toFile());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			writeString(out, SolutionCache.puzzleHash(problem));
+			writeString(out, search.inventory().canonicalLimits());
+			out.writeInt(search.inventory().total());
+			writeString(out, search.pruningRules().toString());
+
+			BoardShape shape = search.shape();
+			List<Set<Device>> domains = search.domains();
+			out.writeInt(domains.size());
+			for (int i = 0; i < domains.size(); ++i) {
+				out.writeInt(shape.row(i));
+				out.writeInt(shape.col(i));
+				out.writeInt(domains.get(i).size());
+				for (Device d : domains.get(i))
+					out.writeByte(DeviceList.code(d));
+			}
+
+			List<Map<Integer, List<List<Device>>>> rows = search.materializedRows();
+			Map<Map<Integer, List<List<Device>>>, Integer> distinct = new IdentityHashMap<>();
+			List<Map<Integer, List<List<Device>>>> distinctList = new ArrayList<>();
+			List<Integer> widths = new ArrayList<>();
+			out.writeInt(rows.size());
+			for (int r = 0; r < rows.size(); ++r) {
+				Map<Integer, List<List<Device>>> row = rows.get(r);
+				Integer index = distinct.get(row);
+				if (index == null) {
+					index = distinctList.size();
+					distinct.put(row, index);
+					distinctList.add(row);
+					widths.add(search.rowLengths()[r]);
+				}
+				out.writeInt(index);
+			}
+			out.writeInt(distinctList.size());
+			for (int i = 0; i < distinctList.size(); ++i) {
+				Map<Integer, List<List<Device>>> buckets = distinctList.get(i);
+				out.writeInt(buckets.size());
+				out.writeInt(widths.get(i));
+				for (Map.Entry<Integer, List<List<Device>>> b : buckets.entrySet()) {
+					out.writeInt(b.getKey());
+					out.writeInt(b.getValue().size());
+					for (List<Device> instance : b.getValue())
+						for (Device d : instance)
+							out.writeByte(DeviceList.code(d));
+				}
+			}
+
+			List<int[]> partitions = search.partitions();
+			out.writeInt(partitions.size());
+			for (int[] p : partitions)
+				for (int k : p)
+					out.writeInt(k);
+			out.flush();
+			fos.getFD().sync();
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Loads the plan at the given path for the given problem and inventory
+	 * with the default pruning rules, returning null if the plan is missing
+	 * or was made for a different problem, inventory or rules.
+	 */
+	public static Search load(Path path, Problem problem, Inventory inventory) throws IOException {
+		return load(path, problem, inventory, PruningRules.defaults(), false);
+	}
+
+	/**
+	 * Loads a plan as {@link #load(Path, Problem, Inventory)} but for the
+	 * given pruning rules, optionally leaving the rows in the mapped file
+	 * rather than copying them to the heap.  Mapped rows are shared through the page cache by all processes
+	 * loading the same plan.
+	 */
+	public static Search load(Path path, Problem problem, Inventory inventory, PruningRules rules, boolean mapped) throws IOException {
+		if (!Files.exists(path)) return null;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedInput in = new MappedInput(channel);
+			if (in.getInt() != MAGIC)
+				throw new IOException("not a search plan: "+path);
+			if (in.getInt() != VERSION)
+				return null;
+			if (!readString(in).equals(SolutionCache.puzzleHash(problem))
+					|| !readString(in).equals(inventory.canonicalLimits())
+					|| in.getInt() != inventory.total()
+					|| !readString(in).equals(rules.toString()))
+				return null;
+
+			//cells are written in index order, so the positions just check the shape
+			BoardShape shape = problem.shape();
+			int cells = in.getInt();
+			if (cells != shape.cells())
+				throw new IOException("plan doesn't match its puzzle: "+path);
+			List<Set<Device>> domains = new ArrayList<>(cells);
+			for (int i = 0; i < cells; ++i) {
+				if (shape.index(in.getInt(), in.getInt()) != i)
+					throw new IOException("plan doesn't match its puzzle: "+path);
+				Set<Device> set = new LinkedHashSet<>();
+				for (int j = in.getInt(); j > 0; --j)
+					set.add(DeviceList.device(in.get()));
+				domains.add(set);
+			}
+
+			int[] rowToDistinct = new int[in.getInt()];
+			for (int i = 0; i < rowToDistinct.length; ++i)
+				rowToDistinct[i] = in.getInt();
+			List<Map<Integer, List<List<Device>>>> distinct = new ArrayList<>();
+			for (int i = in.getInt(); i > 0; --i) {
+				DenseIntegerMap<List<List<Device>>> m = new DenseIntegerMap<>(inventory.keySpace());
+				int buckets = in.getInt(), width = in.getInt();
+				Device[] instance = new Device[width];
+				for (int b = 0; b < buckets; ++b) {
+					int key = in.getInt(), count = in.getInt();
+					if (mapped) {
+						m.put(key, RowStore.bucket(channel, in.position(), width, count));
+						in.skip((long)width * count);
+						continue;
+					}
+					List<List<Device>> bucket = new ArrayList<>(count);
+					m.put(key, bucket);
+					for (int j = 0; j < count; ++j) {
+						for (int k = 0; k < width; ++k)
+							instance[k] = DeviceList.device(in.get());
+						bucket.add(ImmutableList.copyOf(instance));
+					}
+				}
+				distinct.add(m);
+			}
+			List<Map<Integer, List<List<Device>>>> rows = new ArrayList<>(rowToDistinct.length);
+			for (int d : rowToDistinct)
+				rows.add(distinct.get(d));
+
+			List<int[]> partitions = new ArrayList<>();
+			for (int i = in.getInt(); i > 0; --i) {
+				int[] p = new int[rows.size()];
+				for (int j = 0; j < p.length; ++j)
+					p[j] = in.getInt();
+				partitions.add(p);
+			}
+			return new Search(problem, inventory, rules, domains, rows, partitions);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(MappedInput in) throws IOException {
+		byte[] bytes = new byte[in.getInt()];
+		for (int i = 0; i < bytes.length; ++i)
+			bytes[i] = in.get();
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * A file mapped read-only in chunks of at most
+	 * {@link RowStore#MAX_CHUNK_BYTES} (a single mapping can't exceed 2GB),
+	 * read sequentially from a long position.
+	 */
+	private static final class MappedInput {
+		private final ByteBuffer[] chunks;
+		private final long size;
+		private long position;
+		MappedInput(FileChannel channel) throws IOException {
+			this.size = channel.size();
+			this.chunks = new ByteBuffer[(int)((size + RowStore.MAX_CHUNK_BYTES - 1) / RowStore.MAX_CHUNK_BYTES)];
+			for (int c = 0; c < chunks.length; ++c) {
+				long begin = (long)c * RowStore.MAX_CHUNK_BYTES;
+				chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, begin, Math.min(RowStore.MAX_CHUNK_BYTES, size - begin));
+			}
+		}
+		long position() {
+			return position;
+		}
+		void skip(long bytes) throws IOException {
+			if (bytes < 0 || position + bytes > size)
+				throw new EOFException("truncated search plan");
+			position += bytes;
+		}
+		byte get() throws IOException {
+			if (position >= size)
+				throw new EOFException("truncated search plan");
+			byte b = chunks[(int)(position / RowStore.MAX_CHUNK_BYTES)].get((int)(position % RowStore.MAX_CHUNK_BYTES));
+			++position;
+			return b;
+		}
+		int getInt() throws IOException {
+			int offset = (int)(position % RowStore.MAX_CHUNK_BYTES);
+			ByteBuffer chunk = position < size ? chunks[(int)(position / RowStore.MAX_CHUNK_BYTES)] : null;
+			if (chunk != null && offset + Integer.BYTES <= chunk.limit()) {
+				position += Integer.BYTES;
+				return chunk.getInt(offset);
+			}
+			//straddles two chunks (or overruns the file); big-endian, as written
+			int value = 0;
+			for (int i = 0; i < Integer.BYTES; ++i)
+				value = value << 8 | (get() & 0xff);
+			return value;
+		}
+	}
+}
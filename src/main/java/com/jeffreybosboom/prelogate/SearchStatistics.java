@@ -0,0 +1,297 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing a (possibly stopped-early) call to
+ * {@link Search#search(Shard, long, SolutionSink, Checkpoint)}.  Workers
+ * update these concurrently, so values read during the search are
+ * approximate.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SearchStatistics {
+	final LongAdder trials = new LongAdder(), solutions = new LongAdder(),
+			unitsCompleted = new LongAdder(), partitionsCompleted = new LongAdder(),
+			rejectedPruned = new LongAdder(), rejectedUnstable = new LongAdder(),
+			rejectedWrongOutput = new LongAdder(), families = new LongAdder(),
+			collapsed = new LongAdder(), rejectedNogood = new LongAdder(),
+			signatureLookups = new LongAdder(), signatureHits = new LongAdder(),
+			signatureEvictions = new LongAdder();
+	private final long totalTrials, totalUnits, totalPartitions;
+	/**
+	 * Trials completed before this search started (e.g., by a resumed
+	 * checkpoint), excluded from the trial rate.
+	 */
+	volatile long resumedTrials;
+	private final long startNanos;
+	private volatile long endNanos;
+	private volatile boolean finished, stoppedEarly;
+	SearchStatistics(long totalTrials, long totalUnits) {
+		this(totalTrials, totalUnits, 0);
+	}
+	SearchStatistics(long totalTrials, long totalUnits, long totalPartitions) {
+		this.totalTrials = totalTrials;
+		this.totalUnits = totalUnits;
+		this.totalPartitions = totalPartitions;
+		this.startNanos = System.nanoTime();
+	}
+	private SearchStatistics(long totalTrials, long totalUnits, long totalPartitions, long elapsedNanos, boolean stoppedEarly) {
+		this.totalTrials = totalTrials;
+		this.totalUnits = totalUnits;
+		this.totalPartitions = totalPartitions;
+		this.startNanos = 0;
+		this.endNanos = elapsedNanos;
+		this.stoppedEarly = stoppedEarly;
+		this.finished = true;
+	}
+
+	void finish(boolean stoppedEarly) {
+		this.stoppedEarly = stoppedEarly;
+		this.endNanos = System.nanoTime();
+		this.finished = true;
+	}
+
+	public long trials() {
+		return trials.sum();
+	}
+	public long totalTrials() {
+		return totalTrials;
+	}
+	public long solutions() {
+		return solutions.sum();
+	}
+	public long unitsCompleted() {
+		return unitsCompleted.sum();
+	}
+	public long totalUnits() {
+		return totalUnits;
+	}
+	public long partitionsCompleted() {
+		return partitionsCompleted.sum();
+	}
+	/**
+	 * Returns the number of partitions overlapping the searched range, or 0
+	 * if not tracked.
+	 */
+	public long totalPartitions() {
+		return totalPartitions;
+	}
+	/**
+	 * Returns the number of trials rejected without simulation by
+	 * candidate-level {@link PruningRule pruning rules}.
+	 */
+	public long rejectedPruned() {
+		return rejectedPruned.sum();
+	}
+	/**
+	 * Returns the number of trials rejected without simulation because they
+	 * contain a nogood learned from an earlier rejection.
+	 */
+	public long rejectedNogood() {
+		return rejectedNogood.sum();
+	}
+	/**
+	 * Returns the number of trials rejected because the board did not
+	 * quiesce.
+	 */
+	public long rejectedUnstable() {
+		return rejectedUnstable.sum();
+	}
+	/**
+	 * Returns the number of trials rejected because a receiver got the wrong
+	 * value.
+	 */
+	public long rejectedWrongOutput() {
+		return rejectedWrongOutput.sum();
+	}
+	/**
+	 * Returns the number of solution families delivered, or 0 if the search
+	 * didn't {@link SearchControl#collapseFamilies() collapse families}.
+	 */
+	public long families() {
+		return families.sum();
+	}
+	/**
+	 * Returns the number of trials known to be members of an already-found
+	 * solution family, and so not simulated.
+	 */
+	public long collapsed() {
+		return collapsed.sum();
+	}
+	/**
+	 * Returns the number of truth table rows looked up in the beam-path
+	 * signature cache.
+	 */
+	public long signatureLookups() {
+		return signatureLookups.sum();
+	}
+	/**
+	 * Returns the number of signature cache lookups that found the row's
+	 * outcome, so the row wasn't simulated.
+	 */
+	public long signatureHits() {
+		return signatureHits.sum();
+	}
+	public double signatureHitRate() {
+		long lookups = signatureLookups();
+		return lookups > 0 ? (double)signatureHits() / lookups : 0;
+	}
+	/**
+	 * Returns the number of entries evicted from the signature cache, once
+	 * the search has finished.
+	 */
+	public long signatureEvictions() {
+		return signatureEvictions.sum();
+	}
+	/**
+	 * Returns true if the search stopped before checking every trial.
+	 */
+	public boolean stoppedEarly() {
+		return stoppedEarly;
+	}
+	public long elapsedNanos() {
+		return (finished ? endNanos : System.nanoTime()) - startNanos;
+	}
+	public double trialsPerSecond() {
+		long elapsed = elapsedNanos();
+		return elapsed > 0 ? (trials() - resumedTrials) / (elapsed / 1e9) : 0;
+	}
+	/**
+	 * Returns the estimated nanoseconds until every trial has been checked,
+	 * or -1 if no trials have been checked yet.
+	 */
+	public long etaNanos() {
+		double rate = trialsPerSecond();
+		if (rate <= 0) return -1;
+		return (long)((totalTrials() - trials()) / rate * 1e9);
+	}
+
+	/**
+	 * Returns a one-line summary of a running search's progress.
+	 */
+	public String progressLine() {
+		long eta = etaNanos();
+		return String.format("%.1f%% %d/%d trials, %.0f trials/s, %d solutions, %s%d pruned, %d nogood, %d unstable, %d wrong output, ETA %s",
+				totalTrials() == 0 ? 100.0 : 100.0 * trials() / totalTrials(), trials(), totalTrials(),
+				trialsPerSecond(), solutions(),
+				totalPartitions() > 0 ? partitionsCompleted()+"/"+totalPartitions()+" partitions, " : "",
+				rejectedPruned(), rejectedNogood(), rejectedUnstable(), rejectedWrongOutput(),
+				eta < 0 ? "unknown" : formatDuration(eta));
+	}
+
+	private static String formatDuration(long nanos) {
+		long seconds = nanos / 1_000_000_000L;
+		if (seconds < 60)
+			return seconds+"s";
+		if (seconds < 3600)
+			return String.format("%dm%02ds", seconds / 60, seconds % 60);
+		if (seconds < 86400)
+			return String.format("%dh%02dm", seconds / 3600, seconds / 60 % 60);
+		return String.format("%dd%02dh", seconds / 86400, seconds / 3600 % 24);
+	}
+
+	public Properties toProperties() {
+		Properties p = new Properties();
+		p.setProperty("trials", Long.toString(trials()));
+		p.setProperty("totalTrials", Long.toString(totalTrials()));
+		p.setProperty("solutions", Long.toString(solutions()));
+		p.setProperty("unitsCompleted", Long.toString(unitsCompleted()));
+		p.setProperty("totalUnits", Long.toString(totalUnits()));
+		p.setProperty("partitionsCompleted", Long.toString(partitionsCompleted()));
+		p.setProperty("totalPartitions", Long.toString(totalPartitions()));
+		p.setProperty("rejectedPruned", Long.toString(rejectedPruned()));
+		p.setProperty("rejectedNogood", Long.toString(rejectedNogood()));
+		p.setProperty("rejectedUnstable", Long.toString(rejectedUnstable()));
+		p.setProperty("rejectedWrongOutput", Long.toString(rejectedWrongOutput()));
+		p.setProperty("families", Long.toString(families()));
+		p.setProperty("collapsed", Long.toString(collapsed()));
+		p.setProperty("signatureLookups", Long.toString(signatureLookups()));
+		p.setProperty("signatureHits", Long.toString(signatureHits()));
+		p.setProperty("signatureEvictions", Long.toString(signatureEvictions()));
+		p.setProperty("elapsedNanos", Long.toString(elapsedNanos()));
+		p.setProperty("stoppedEarly", Boolean.toString(stoppedEarly()));
+		return p;
+	}
+
+	public static void store(Properties p, Path path) throws IOException {
+		try (Writer w = Files.newBufferedWriter(path)) {
+			p.store(w, "prelogate-solver search statistics");
+		}
+	}
+
+	public static Properties load(Path path) throws IOException {
+		Properties p = new Properties();
+		try (Reader r = Files.newBufferedReader(path)) {
+			p.load(r);
+		}
+		return p;
+	}
+
+	/**
+	 * Combines statistics from searches of disjoint parts of a search space
+	 * run in parallel (e.g., shards), so elapsed time is the maximum.
+	 */
+	public static SearchStatistics merge(List<Properties> parts) {
+		long totalTrials = 0, totalUnits = 0, totalPartitions = 0, elapsed = 0;
+		boolean stoppedEarly = false;
+		for (Properties p : parts) {
+			totalTrials += Long.parseLong(p.getProperty("totalTrials"));
+			totalUnits += Long.parseLong(p.getProperty("totalUnits"));
+			//older statistics files lack partition, rejection and cache counts
+			totalPartitions += Long.parseLong(p.getProperty("totalPartitions", "0"));
+			elapsed = Math.max(elapsed, Long.parseLong(p.getProperty("elapsedNanos")));
+			stoppedEarly |= Boolean.parseBoolean(p.getProperty("stoppedEarly"));
+		}
+		SearchStatistics merged = new SearchStatistics(totalTrials, totalUnits, totalPartitions, elapsed, stoppedEarly);
+		for (Properties p : parts) {
+			merged.trials.add(Long.parseLong(p.getProperty("trials")));
+			merged.solutions.add(Long.parseLong(p.getProperty("solutions")));
+			merged.unitsCompleted.add(Long.parseLong(p.getProperty("unitsCompleted")));
+			merged.partitionsCompleted.add(Long.parseLong(p.getProperty("partitionsCompleted", "0")));
+			merged.rejectedPruned.add(Long.parseLong(p.getProperty("rejectedPruned", "0")));
+			merged.rejectedNogood.add(Long.parseLong(p.getProperty("rejectedNogood", "0")));
+			merged.rejectedUnstable.add(Long.parseLong(p.getProperty("rejectedUnstable", "0")));
+			merged.rejectedWrongOutput.add(Long.parseLong(p.getProperty("rejectedWrongOutput", "0")));
+			merged.families.add(Long.parseLong(p.getProperty("families", "0")));
+			merged.collapsed.add(Long.parseLong(p.getProperty("collapsed", "0")));
+			merged.signatureLookups.add(Long.parseLong(p.getProperty("signatureLookups", "0")));
+			merged.signatureHits.add(Long.parseLong(p.getProperty("signatureHits", "0")));
+			merged.signatureEvictions.add(Long.parseLong(p.getProperty("signatureEvictions", "0")));
+		}
+		return merged;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d/%d trials, %d solutions%s, %d/%d units, %.3fs%s",
+				trials(), totalTrials(), solutions(),
+				families() > 0 ? " in "+families()+" families ("+collapsed()+" trials collapsed)" : "",
+				unitsCompleted(), totalUnits(),
+				elapsedNanos() / 1e9, stoppedEarly() ? " (stopped early)" : "");
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.math.BigInteger;
+
+/**
+ * One of n equal slices of a search's trial index space.  Slicing by trial
+ * index rather than by partition balances the shards even when partition
+ * sizes are wildly uneven, and because trial numbering depends only on the
+ * puzzle file, every machine computes the same boundaries.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class Shard {
+	public static final Shard ALL = new Shard(0, 1);
+	private final int index, count;
+	public Shard(int index, int count) {
+		if (count <= 0 || index < 0 || index >= count)
+			throw new IllegalArgumentException("bad shard: "+index+"/"+count);
+		this.index = index;
+		this.count = count;
+	}
+
+	/**
+	 * Parses a shard like "3/8" (the fourth of eight shards).
+	 */
+	public static Shard parse(String spec) {
+		String[] parts = spec.split("/");
+		if (parts.length != 2)
+			throw new IllegalArgumentException("bad shard: "+spec);
+		return new Shard(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+	}
+
+	public int index() {
+		return index;
+	}
+
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Returns the first trial index in this shard.
+	 */
+	public long begin(long totalTrials) {
+		return boundary(totalTrials, index);
+	}
+
+	/**
+	 * Returns one past the last trial index in this shard.
+	 */
+	public long end(long totalTrials) {
+		return boundary(totalTrials, index + 1);
+	}
+
+	private long boundary(long totalTrials, int i) {
+		//totalTrials * i can overflow a long
+		return BigInteger.valueOf(totalTrials).multiply(BigInteger.valueOf(i))
+				.divide(BigInteger.valueOf(count)).longValueExact();
+	}
+
+	@Override
+	public String toString() {
+		return index+"/"+count;
+	}
+}
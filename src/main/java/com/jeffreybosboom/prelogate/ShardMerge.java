@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Combines the results of a sharded search.  Each shard's results are a
+ * solution file prefix.bin and a statistics file prefix.stats, as written by
+ * {@code Search --shard k/n --output prefix.bin --stats prefix.stats}.
+ * <p>
+ * Usage: ShardMerge output-prefix shard-prefix...
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class ShardMerge {
+	private ShardMerge() {}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: ShardMerge output-prefix shard-prefix...");
+			System.exit(1);
+		}
+		//creating the output truncates it, so it mustn't be one of the shards
+		Path output = Paths.get(args[0]+".bin");
+		for (int i = 1; i < args.length; ++i) {
+			Path shard = Paths.get(args[i]+".bin");
+			if (shard.toAbsolutePath().normalize().equals(output.toAbsolutePath().normalize())
+					|| (Files.exists(output) && Files.exists(shard) && Files.isSameFile(shard, output)))
+				throw new IllegalArgumentException("output "+args[0]+" is also shard "+args[i]);
+		}
+		List<Properties> stats = new ArrayList<>();
+		for (int i = 1; i < args.length; ++i)
+			stats.add(SearchStatistics.load(Paths.get(args[i]+".stats")));
+
+		int shardCount = Shard.parse(stats.get(0).getProperty("shard")).count();
+		String puzzleTrials = stats.get(0).getProperty("puzzleTrials");
+		BitSet seen = new BitSet(shardCount);
+		for (int i = 0; i < stats.size(); ++i) {
+			Shard s = Shard.parse(stats.get(i).getProperty("shard"));
+			if (s.count() != shardCount || !stats.get(i).getProperty("puzzleTrials").equals(puzzleTrials))
+				throw new IllegalArgumentException(args[i+1]+" is from a different sharded search");
+			if (seen.get(s.index()))
+				throw new IllegalArgumentException("shard "+s+" given twice");
+			seen.set(s.index());
+		}
+		if (seen.cardinality() != shardCount)
+			System.err.println("warning: only "+seen.cardinality()+" of "+shardCount+" shards present");
+
+		SearchStatistics merged = SearchStatistics.merge(stats);
+		int[] rowLengths;
+		try (SolutionFile.Reader r = SolutionFile.open(Paths.get(args[1]+".bin"))) {
+			rowLengths = r.rowLengths();
+		}
+		try (SolutionFile.Writer out = SolutionFile.create(output, rowLengths)) {
+			for (int i = 1; i < args.length; ++i)
+				SolutionFile.copy(Paths.get(args[i]+".bin"), rowLengths, Long.MAX_VALUE, out);
+		}
+		Properties p = merged.toProperties();
+		p.setProperty("puzzleTrials", puzzleTrials);
+		p.setProperty("shards", seen.cardinality()+"/"+shardCount);
+		SearchStatistics.store(p, Paths.get(args[0]+".stats"));
+		System.out.println(merged);
+	}
+}
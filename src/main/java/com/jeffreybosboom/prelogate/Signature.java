@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.util.Arrays;
+
+/**
+ * A truth table row and the devices of a board in a mask's cells, the key
+ * of a {@link SignatureCache}.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class Signature {
+	private final int ttr;
+	private final CellMask mask;
+	private final byte[] codes;
+	private final int hashCode;
+	Signature(int ttr, CellMask mask, byte[] boardCodes) {
+		this.ttr = ttr;
+		this.mask = mask;
+		this.codes = mask.project(boardCodes);
+		long hash = mask.hash(boardCodes);
+		this.hashCode = 31 * (int)(hash ^ (hash >>> 32)) + ttr;
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof Signature))
+			return false;
+		Signature other = (Signature)obj;
+		return ttr == other.ttr && mask == other.mask && Arrays.equals(codes, other.codes);
+	}
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jeffreybosboom.prelogate.Search.Outcome;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Results of simulating single truth table rows, keyed by the row and
+ * its beam-path signature: the devices in the cells the row lit.  Any
+ * board with those devices in those cells simulates the row identically,
+ * so evaluation can skip the quiescence loop for a row whose signature is
+ * cached.  The cache is bounded, evicting the least recently used
+ * entries, and shared by one search's workers.  As with {@link Nogoods},
+ * boards are looked up under only each row's most-used masks.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class SignatureCache {
+	private static final int CAPACITY = 1 << 16, CONSULTED_MASKS = 4, RANK_INTERVAL = 1 << 8;
+	private final BoardShape shape;
+	private final List<Set<Device>> domains;
+	private final long[][] cellHashes;
+	/**
+	 * Row outcomes; SOLVED means the row's receivers were all correct.
+	 */
+	private final Cache<Signature, Outcome> cache = CacheBuilder.newBuilder()
+			.maximumSize(CAPACITY).recordStats().build();
+	private final List<ConcurrentHashMap<BitSet, CellMask>> masks = new ArrayList<>();
+	private final AtomicReferenceArray<CellMask[]> consulted;
+	private final AtomicIntegerArray puts;
+	private final SearchStatistics stats;
+	SignatureCache(BoardShape shape, List<Set<Device>> domains, int truthTableRows, long[][] cellHashes, SearchStatistics stats) {
+		this.shape = shape;
+		this.domains = domains;
+		this.cellHashes = cellHashes;
+		this.stats = stats;
+		this.puts = new AtomicIntegerArray(truthTableRows);
+		this.consulted = new AtomicReferenceArray<>(truthTableRows);
+		for (int ttr = 0; ttr < truthTableRows; ++ttr) {
+			masks.add(new ConcurrentHashMap<>());
+			consulted.set(ttr, new CellMask[0]);
+		}
+	}
+
+	/**
+	 * Returns the cached outcome of the given row for the cursor's board,
+	 * marking the cells of its signature lit in the trace, or null if not
+	 * cached.
+	 */
+	Outcome lookup(int ttr, Cursor cursor, Trace trace) {
+		stats.signatureLookups.increment();
+		for (CellMask m : consulted.get(ttr)) {
+			Outcome outcome = cache.getIfPresent(new Signature(ttr, m, cursor.codes));
+			if (outcome != null) {
+				stats.signatureHits.increment();
+				for (int i : m.cells)
+					trace.light(ttr, i);
+				return outcome;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Caches the outcome of the given row, just simulated on the cursor's
+	 * board with the given trace.
+	 */
+	void put(int ttr, Cursor cursor, Trace trace, Outcome outcome) {
+		BitSet cells = new BitSet(shape.cells());
+		for (int i = 0; i < shape.cells(); ++i)
+			if (trace.litIn(ttr, i) && domains.get(i).size() > 1)
+				cells.set(i);
+		CellMask mask = masks.get(ttr).computeIfAbsent(cells, c -> new CellMask(c, shape, cellHashes));
+		mask.uses.increment();
+		cache.put(new Signature(ttr, mask, cursor.codes), outcome);
+		if (puts.incrementAndGet(ttr) % RANK_INTERVAL == 0)
+			consulted.set(ttr, CellMask.mostUsed(masks.get(ttr).values(), CONSULTED_MASKS));
+	}
+
+	long evictions() {
+		return cache.stats().evictionCount();
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Statistics about the laser simulation in a search: how many ticks the
+ * board takes to quiesce, how often it doesn't, which truth table rows and
+ * receivers reject candidates, and how many cells carry a beam.  Each worker
+ * thread records into its own buffer, which are summed when read, so read
+ * after the search finishes for exact values.  Request collection with
+ * {@link SearchControl#collectSimulationStatistics()}.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SimulationStatistics {
+	private final int maxTicks;
+	private final List<Coordinate> receivers;
+	private final int truthTableRows;
+	private final List<Recorder> recorders = new ArrayList<>();
+	private final ThreadLocal<Recorder> local = ThreadLocal.withInitial(() -> {
+		Recorder r = new Recorder();
+		synchronized (recorders) {
+			recorders.add(r);
+		}
+		return r;
+	});
+	SimulationStatistics(int maxTicks, int truthTableRows, List<Coordinate> receivers) {
+		this.maxTicks = maxTicks;
+		this.truthTableRows = truthTableRows;
+		this.receivers = receivers;
+	}
+
+	/**
+	 * Returns the calling thread's recorder.
+	 */
+	Recorder recorder() {
+		return local.get();
+	}
+
+	/**
+	 * One thread's counts.
+	 */
+	final class Recorder {
+		long evaluations, simulations, timeouts, ticks, activeCells;
+		/**
+		 * Simulations quiescing after each number of ticks.
+		 */
+		final long[] ticksToQuiescence = new long[maxTicks+1];
+		final long[] unstableByRow = new long[truthTableRows], wrongOutputByRow = new long[truthTableRows];
+		final long[] wrongOutputByReceiver = new long[receivers.size()];
+		private Recorder() {}
+	}
+
+	private long sum(ToLongFunction<Recorder> f) {
+		synchronized (recorders) {
+			return recorders.stream().mapToLong(f).sum();
+		}
+	}
+
+	private long[] sum(Function<Recorder, long[]> f, int length) {
+		long[] sum = new long[length];
+		synchronized (recorders) {
+			for (Recorder r : recorders) {
+				long[] a = f.apply(r);
+				for (int i = 0; i < length; ++i)
+					sum[i] += a[i];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the number of candidates evaluated.
+	 */
+	public long evaluations() {
+		return sum(r -> r.evaluations);
+	}
+	/**
+	 * Returns the number of truth table rows simulated (evaluation stops at
+	 * the first rejecting row).
+	 */
+	public long simulations() {
+		return sum(r -> r.simulations);
+	}
+	/**
+	 * Returns the number of simulations that did not quiesce.
+	 */
+	public long timeouts() {
+		return sum(r -> r.timeouts);
+	}
+	/**
+	 * Returns the number of simulations quiescing after each number of ticks
+	 * (indexed by ticks).
+	 */
+	public long[] ticksToQuiescence() {
+		return sum(r -> r.ticksToQuiescence, maxTicks+1);
+	}
+	/**
+	 * Returns the average number of cells emitting a beam per simulated tick.
+	 */
+	public double averageActiveCells() {
+		long ticks = sum(r -> r.ticks);
+		return ticks == 0 ? 0 : (double)sum(r -> r.activeCells) / ticks;
+	}
+	public long[] unstableByTruthTableRow() {
+		return sum(r -> r.unstableByRow, truthTableRows);
+	}
+	public long[] wrongOutputByTruthTableRow() {
+		return sum(r -> r.wrongOutputByRow, truthTableRows);
+	}
+	/**
+	 * Returns the number of rejections by the first receiver getting the
+	 * wrong value, in the order of {@link #receivers()}.
+	 */
+	public long[] wrongOutputByReceiver() {
+		return sum(r -> r.wrongOutputByReceiver, receivers.size());
+	}
+	public List<Coordinate> receivers() {
+		return receivers;
+	}
+
+	public String toJson() {
+		long[] histogram = ticksToQuiescence();
+		int last = histogram.length;
+		while (last > 0 && histogram[last-1] == 0) --last;
+		StringBuilder sb = new StringBuilder("{\n");
+		sb.append("  \"evaluations\": ").append(evaluations()).append(",\n");
+		sb.append("  \"simulations\": ").append(simulations()).append(",\n");
+		sb.append("  \"timeouts\": ").append(timeouts()).append(",\n");
+		sb.append("  \"maxTicks\": ").append(maxTicks).append(",\n");
+		sb.append("  \"ticksToQuiescence\": ");
+		appendArray(sb, histogram, last);
+		sb.append(",\n");
+		sb.append("  \"averageActiveCells\": ").append(averageActiveCells()).append(",\n");
+		sb.append("  \"unstableByTruthTableRow\": ");
+		appendArray(sb, unstableByTruthTableRow(), truthTableRows);
+		sb.append(",\n");
+		sb.append("  \"wrongOutputByTruthTableRow\": ");
+		appendArray(sb, wrongOutputByTruthTableRow(), truthTableRows);
+		sb.append(",\n");
+		sb.append("  \"wrongOutputByReceiver\": {");
+		long[] byReceiver = wrongOutputByReceiver();
+		for (int i = 0; i < byReceiver.length; ++i) {
+			if (i > 0) sb.append(", ");
+			sb.append('"').append(receivers.get(i).row()).append(',').append(receivers.get(i).col())
+					.append("\": ").append(byReceiver[i]);
+		}
+		sb.append("}\n}\n");
+		return sb.toString();
+	}
+
+	private static void appendArray(StringBuilder sb, long[] a, int length) {
+		sb.append('[');
+		for (int i = 0; i < length; ++i) {
+			if (i > 0) sb.append(", ");
+			sb.append(a[i]);
+		}
+		sb.append(']');
+	}
+
+	public void writeJson(Path path) throws IOException {
+		try (Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			w.write(toJson());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+}
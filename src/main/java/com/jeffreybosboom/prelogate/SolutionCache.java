@@ -0,0 +1,260 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * An on-disk cache of complete search results, keyed by a hash of the
+ * canonicalized puzzle, the inventory, the pruning rules (some of which
+ * deliberately discard solutions) and a format version, bumped whenever a
+ * change to the search changes its solutions.  Canonicalization makes the hash
+ * independent of the puzzle file's symbol letters and whitespace, the order
+ * devices are listed for a symbol, terminal order and truth table row order.
+ * Each entry is a solution file key.bin and a statistics file key.stats; the
+ * statistics file is written last, so its presence marks a valid entry.
+ * When the cache exceeds its size bound, the least recently used entries are
+ * evicted.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SolutionCache {
+	private static final int VERSION = 2;
+	private final Path dir;
+	private final long maxBytes;
+	public SolutionCache(Path dir, long maxBytes) throws IOException {
+		this.dir = Files.createDirectories(dir);
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns a hash of the canonical form of the given problem.
+	 */
+	public static String puzzleHash(Problem problem) {
+		Hasher h = Hashing.sha256().newHasher();
+		//cells in row-major order, as when they were keyed by Coordinate
+		BoardShape shape = problem.shape();
+		for (int i = 0; i < shape.cells(); ++i) {
+			h.putInt(shape.row(i)).putInt(shape.col(i));
+			TreeSet<Byte> codes = problem.domains().get(i).stream().map(DeviceList::code)
+					.collect(Collectors.toCollection(TreeSet::new));
+			h.putInt(codes.size());
+			codes.forEach(h::putByte);
+		}
+		List<Terminal> terminals = new ArrayList<>(problem.terminals());
+		terminals.sort(Comparator.comparingInt(Terminal::index));
+		for (Terminal t : terminals)
+			h.putBoolean(t.isEmitter()).putInt(t.row()).putInt(t.col()).putInt(t.dir().ordinal());
+		int rows = terminals.isEmpty() ? 0 : terminals.get(0).values().size();
+		TreeSet<String> truthTable = new TreeSet<>();
+		for (int r = 0; r < rows; ++r) {
+			StringBuilder sb = new StringBuilder();
+			for (Terminal t : terminals)
+				sb.append(t.values().get(r) ? '1' : '0');
+			truthTable.add(sb.toString());
+		}
+		truthTable.forEach(r -> h.putString(r, StandardCharsets.UTF_8).putChar('\n'));
+		return h.hash().toString();
+	}
+
+	/**
+	 * Returns the cache key for searching the given puzzle with the given
+	 * inventory and pruning rules.
+	 */
+	public static String key(String puzzleHash, Inventory inventory, PruningRules rules) {
+		return Hashing.sha256().newHasher()
+				.putInt(VERSION)
+				.putString(rules.toString(), StandardCharsets.UTF_8)
+				.putString(puzzleHash, StandardCharsets.UTF_8)
+				.putString(inventory.canonicalLimits(), StandardCharsets.UTF_8)
+				.putInt(inventory.total())
+				.hash().toString();
+	}
+
+	/**
+	 * Returns the statistics of the cached search with the given key, or null
+	 * if there isn't one.  The entry's solutions are in
+	 * {@link #solutions(String)}.
+	 */
+	public Properties lookup(String key) throws IOException {
+		Path stats = dir.resolve(key+".stats");
+		if (!Files.exists(stats) || !Files.exists(solutions(key))) return null;
+		Properties p;
+		try {
+			p = SearchStatistics.load(stats);
+			//mark as recently used
+			Files.setLastModifiedTime(stats, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException ex) {
+			return null; //evicted out from under us
+		}
+		return p;
+	}
+
+	public Path solutions(String key) {
+		return dir.resolve(key+".bin");
+	}
+
+	/**
+	 * A cache entry being written by a running search.
+	 */
+	public final class Pending implements SolutionSink {
+		private final String key;
+		private final Path temp;
+		private final SolutionFile.Writer writer;
+		private Pending(String key, int[] rowLengths) throws IOException {
+			this.key = key;
+			this.temp = Files.createTempFile(dir, key, ".bin.tmp");
+			this.writer = SolutionFile.create(temp, rowLengths);
+		}
+		@Override
+		public void accept(List<List<ImmutableList<Device>>> solutions) throws IOException {
+			writer.accept(solutions);
+		}
+		@Override
+		public long sync() throws IOException {
+			return writer.sync();
+		}
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+		/**
+		 * Adds this entry to the cache.  Only call this for a search that
+		 * wasn't stopped early.
+		 */
+		public void commit(Properties stats) throws IOException {
+			writer.close();
+			Files.move(temp, solutions(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Path statsTemp = Files.createTempFile(dir, key, ".stats.tmp");
+			SearchStatistics.store(stats, statsTemp);
+			Files.move(statsTemp, dir.resolve(key+".stats"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			evict();
+		}
+		/**
+		 * Discards this entry.
+		 */
+		public void abort() throws IOException {
+			writer.close();
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Starts a cache entry for the given key.
+	 */
+	public Pending begin(String key, int[] rowLengths) throws IOException {
+		return new Pending(key, rowLengths);
+	}
+
+	/**
+	 * Returns the smallest device count with solutions for the given puzzle,
+	 * inventory limits and pruning rules, if the cache holds complete results
+	 * for every count up to it.
+	 */
+	public OptionalInt minimalDeviceCount(String puzzleHash, Inventory inventory, PruningRules rules) throws IOException {
+		TreeMap<Integer, Long> solutionsByCount = new TreeMap<>();
+		for (Path p : entries()) {
+			Properties stats;
+			try {
+				stats = SearchStatistics.load(p);
+			} catch (IOException ex) {
+				continue;
+			}
+			if (Integer.toString(VERSION).equals(stats.getProperty("cacheVersion"))
+					&& rules.toString().equals(stats.getProperty("rules"))
+					&& puzzleHash.equals(stats.getProperty("puzzleHash"))
+					&& inventory.canonicalLimits().equals(stats.getProperty("inventoryLimits")))
+				solutionsByCount.put(Integer.parseInt(stats.getProperty("deviceCount")),
+						Long.parseLong(stats.getProperty("solutions")));
+		}
+		for (int i = 0; solutionsByCount.containsKey(i); ++i)
+			if (solutionsByCount.get(i) > 0)
+				return OptionalInt.of(i);
+		return OptionalInt.empty();
+	}
+
+	/**
+	 * Returns the statistics properties to store for a completed search.
+	 */
+	public static Properties describe(SearchStatistics stats, String puzzleHash, Inventory inventory, PruningRules rules) {
+		Properties p = stats.toProperties();
+		p.setProperty("cacheVersion", Integer.toString(VERSION));
+		p.setProperty("rules", rules.toString());
+		p.setProperty("puzzleHash", puzzleHash);
+		p.setProperty("inventoryLimits", inventory.canonicalLimits());
+		p.setProperty("deviceCount", Integer.toString(inventory.total()));
+		return p;
+	}
+
+	private List<Path> entries() throws IOException {
+		List<Path> entries = new ArrayList<>();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.stats")) {
+			ds.forEach(entries::add);
+		}
+		return entries;
+	}
+
+	/**
+	 * Evicts least recently used entries until the cache fits its bound.
+	 */
+	private synchronized void evict() throws IOException {
+		long total = 0;
+		Map<Path, Long> sizes = new TreeMap<>();
+		Map<Path, FileTime> used = new TreeMap<>();
+		for (Path stats : entries())
+			try {
+				Path bin = dir.resolve(stats.getFileName().toString().replaceFirst("\\.stats$", ".bin"));
+				long size = Files.size(stats) + (Files.exists(bin) ? Files.size(bin) : 0);
+				sizes.put(stats, size);
+				used.put(stats, Files.getLastModifiedTime(stats));
+				total += size;
+			} catch (IOException ex) {
+				//concurrently evicted
+			}
+		if (total <= maxBytes) return;
+		List<Path> byAge = new ArrayList<>(used.keySet());
+		byAge.sort(Comparator.comparing(used::get));
+		for (Path stats : byAge) {
+			if (total <= maxBytes) break;
+			Path bin = dir.resolve(stats.getFileName().toString().replaceFirst("\\.stats$", ".bin"));
+			//delete the stats file first so the entry is never half-valid
+			Files.deleteIfExists(stats);
+			Files.deleteIfExists(bin);
+			total -= sizes.get(stats);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A set of solutions differing only in cells no beam enters under any row of
+ * the truth table.  Devices never emit without input, so whatever devices
+ * fill those wildcard cells, every member simulates exactly as the
+ * representative does.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SolutionFamily {
+	private final ImmutableList<ImmutableList<Device>> representative;
+	private final BoardShape shape;
+	private final BitSet wildcards;
+	private final long size;
+	/**
+	 * The number of trailing rows whose every cell is a wildcard or has only
+	 * one possible device, so every instance of those rows is a member.
+	 */
+	final int freeRows;
+	SolutionFamily(List<ImmutableList<Device>> representative, BoardShape shape, BitSet wildcards, long size, int freeRows) {
+		this.representative = ImmutableList.copyOf(representative);
+		this.shape = shape;
+		this.wildcards = (BitSet)wildcards.clone();
+		this.size = size;
+		this.freeRows = freeRows;
+	}
+
+	/**
+	 * Returns one member of this family: the first one found, which depends
+	 * on scheduling.
+	 */
+	public List<ImmutableList<Device>> representative() {
+		return representative;
+	}
+
+	public boolean isWildcard(int row, int col) {
+		return wildcards.get(shape.index(row, col));
+	}
+
+	/**
+	 * Returns the number of solutions in this family.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the representative with its wildcard cells shown as *, followed
+	 * by the family size.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int r = 0; r < shape.rows(); ++r) {
+			sb.append(r == 0 ? "[" : ", [");
+			for (int c = 0; c < shape.rowLength(r); ++c) {
+				if (c > 0) sb.append(", ");
+				sb.append(isWildcard(r, c) ? "*" : representative.get(r).get(c));
+			}
+			sb.append("]");
+		}
+		return sb.append("] x").append(size).toString();
+	}
+}
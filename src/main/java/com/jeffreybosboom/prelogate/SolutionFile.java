@@ -0,0 +1,233 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact binary file of solutions.  The header records the board shape;
+ * each solution is then a fixed-width record of one {@link DeviceList} byte
+ * per cell, row-major.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SolutionFile {
+	private static final int MAGIC = 0x504c4753; //"PLGS"
+	private static final int VERSION = 1;
+	private SolutionFile() {}
+
+	/**
+	 * Creates (or truncates) the given file and returns a sink writing
+	 * solutions for a board with the given row lengths to it.
+	 */
+	public static Writer create(Path path, int[] rowLengths) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		ByteBuffer header = ByteBuffer.allocate(12 + 4 * rowLengths.length);
+		header.putInt(MAGIC).putInt(VERSION).putInt(rowLengths.length);
+		for (int l : rowLengths)
+			header.putInt(l);
+		header.flip();
+		while (header.hasRemaining())
+			channel.write(header);
+		return new Writer(channel, Arrays.stream(rowLengths).sum());
+	}
+
+	/**
+	 * Opens the given solution file for appending after truncating it to the
+	 * given length, discarding solutions written after a checkpoint.
+	 */
+	public static Writer append(Path path, int[] rowLengths, long length) throws IOException {
+		try (Reader reader = open(path)) {
+			if (!Arrays.equals(reader.rowLengths(), rowLengths))
+				throw new IOException(path+" is for a different board");
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+		if (channel.size() < length) {
+			channel.close();
+			throw new IOException(path+" is shorter than its checkpoint");
+		}
+		channel.truncate(length);
+		channel.position(length);
+		return new Writer(channel, Arrays.stream(rowLengths).sum());
+	}
+
+	public static final class Writer implements SolutionSink {
+		private final FileChannel channel;
+		private final int recordSize;
+		private final ThreadLocal<ByteBuffer> buffers;
+		private Writer(FileChannel channel, int recordSize) {
+			this.channel = channel;
+			this.recordSize = recordSize;
+			this.buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(recordSize * 256));
+		}
+
+		@Override
+		public void accept(List<List<ImmutableList<Device>>> solutions) throws IOException {
+			//encode into this thread's buffer, then write in one locked call
+			ByteBuffer buffer = buffers.get();
+			if (buffer.capacity() < recordSize * solutions.size()) {
+				buffer = ByteBuffer.allocate(recordSize * solutions.size());
+				buffers.set(buffer);
+			}
+			buffer.clear();
+			encode(solutions, buffer);
+			buffer.flip();
+			write(buffer);
+		}
+
+		/**
+		 * Writes already-encoded solution records.
+		 */
+		void write(ByteBuffer records) throws IOException {
+			if (records.remaining() % recordSize != 0)
+				throw new IOException("partial solution record");
+			synchronized (channel) {
+				while (records.hasRemaining())
+					channel.write(records);
+			}
+		}
+
+		@Override
+		public long sync() throws IOException {
+			synchronized (channel) {
+				channel.force(false);
+				return channel.position();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Encodes the given solutions as records in the given buffer.
+	 */
+	static void encode(List<List<ImmutableList<Device>>> solutions, ByteBuffer buffer) {
+		for (List<ImmutableList<Device>> s : solutions)
+			for (List<Device> row : s)
+				for (Device d : row)
+					buffer.put(DeviceList.code(d));
+	}
+
+	public static Reader open(Path path) throws IOException {
+		return new Reader(new DataInputStream(new BufferedInputStream(Files.newInputStream(path))));
+	}
+
+	public static final class Reader implements Closeable {
+		private final DataInputStream in;
+		private final int[] rowLengths;
+		private final byte[] record;
+		private Reader(DataInputStream in) throws IOException {
+			this.in = in;
+			if (in.readInt() != MAGIC)
+				throw new IOException("not a solution file");
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("unsupported solution file version "+version);
+			this.rowLengths = new int[in.readInt()];
+			for (int i = 0; i < rowLengths.length; ++i)
+				rowLengths[i] = in.readInt();
+			this.record = new byte[Arrays.stream(rowLengths).sum()];
+		}
+
+		public int[] rowLengths() {
+			return rowLengths.clone();
+		}
+
+		/**
+		 * Returns the next solution, or null at end of file.
+		 */
+		public List<DeviceList> next() throws IOException {
+			try {
+				in.readFully(record);
+			} catch (EOFException ex) {
+				return null;
+			}
+			List<DeviceList> solution = new ArrayList<>(rowLengths.length);
+			int offset = 0;
+			for (int l : rowLengths) {
+				solution.add(new DeviceList(Arrays.copyOfRange(record, offset, offset + l)));
+				offset += l;
+			}
+			return solution;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Delivers up to limit solutions from the given file to the given sink,
+	 * checking that they're for a board with the given row lengths (unless
+	 * rowLengths is null).
+	 * @return the number of solutions delivered
+	 */
+	public static long copy(Path path, int[] rowLengths, long limit, SolutionSink sink) throws IOException {
+		long count = 0;
+		try (Reader r = open(path)) {
+			if (rowLengths != null && !Arrays.equals(r.rowLengths(), rowLengths))
+				throw new IOException(path+" is for a different board");
+			List<List<ImmutableList<Device>>> batch = new ArrayList<>();
+			List<DeviceList> s;
+			while (count < limit && (s = r.next()) != null) {
+				List<ImmutableList<Device>> solution = new ArrayList<>(s.size());
+				for (DeviceList row : s)
+					solution.add(ImmutableList.copyOf(row));
+				batch.add(solution);
+				++count;
+				if (batch.size() == 1024) {
+					sink.accept(batch);
+					batch.clear();
+				}
+			}
+			if (!batch.isEmpty())
+				sink.accept(batch);
+		}
+		return count;
+	}
+
+	/**
+	 * Converts solution files to the text format Search prints.
+	 */
+	public static void main(String[] args) throws IOException {
+		for (String arg : args)
+			try (Reader reader = open(Paths.get(arg))) {
+				for (List<DeviceList> s = reader.next(); s != null; s = reader.next())
+					System.out.println(s);
+			}
+	}
+}
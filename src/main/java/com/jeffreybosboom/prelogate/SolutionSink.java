@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Receives solutions as the search finds them.  Workers buffer solutions
+ * locally and deliver them in batches, so implementations see one call per
+ * batch rather than per solution, but calls may come from many threads at
+ * once.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public interface SolutionSink extends Closeable {
+	public void accept(List<List<ImmutableList<Device>>> solutions) throws IOException;
+
+	/**
+	 * Makes all solutions accepted so far durable, returning the length of
+	 * the output in bytes, or -1 if this sink's output has no length.
+	 */
+	public default long sync() throws IOException {
+		return -1;
+	}
+
+	@Override
+	public default void close() throws IOException {}
+
+	/**
+	 * Returns a sink printing one solution (or family) per line to the given
+	 * stream.
+	 * Each batch is formatted first and printed with a single call.
+	 */
+	public static FamilySink printing(PrintStream out) {
+		return new FamilySink() {
+			@Override
+			public void accept(List<List<ImmutableList<Device>>> solutions) {
+				StringBuilder sb = new StringBuilder();
+				for (List<ImmutableList<Device>> s : solutions)
+					sb.append(s).append(System.lineSeparator());
+				out.print(sb);
+			}
+			@Override
+			public void acceptFamilies(List<SolutionFamily> families) {
+				StringBuilder sb = new StringBuilder();
+				for (SolutionFamily f : families)
+					sb.append(f).append(System.lineSeparator());
+				out.print(sb);
+			}
+			@Override
+			public long sync() {
+				out.flush();
+				return -1;
+			}
+			@Override
+			public void close() {
+				out.flush();
+			}
+		};
+	}
+
+	/**
+	 * Returns a sink delivering solutions to both given sinks.  sync()
+	 * returns the first sink's length.
+	 */
+	public static SolutionSink both(SolutionSink first, SolutionSink second) {
+		return new SolutionSink() {
+			@Override
+			public void accept(List<List<ImmutableList<Device>>> solutions) throws IOException {
+				first.accept(solutions);
+				second.accept(solutions);
+			}
+			@Override
+			public long sync() throws IOException {
+				second.sync();
+				return first.sync();
+			}
+			@Override
+			public void close() throws IOException {
+				try {
+					first.close();
+				} finally {
+					second.close();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns a sink that discards solutions, for when only the count in the
+	 * SearchStatistics is wanted.
+	 */
+	public static SolutionSink discarding() {
+		return solutions -> {};
+	}
+}
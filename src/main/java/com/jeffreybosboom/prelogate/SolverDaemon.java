@@ -0,0 +1,311 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A long-running solver accepting puzzles over HTTP on the loopback
+ * interface, so interactive tools don't pay JVM startup and JIT warmup per
+ * puzzle.  Constructed Searches are cached by puzzle text and inventory, so
+ * repeated queries also skip pruning and materialization.
+ * <ul>
+ * <li>POST /jobs?devices=n[&amp;inventory=spec][&amp;limit=n][&amp;priority=p]
+ * with the puzzle file as the body queues a job and returns its id.  Higher
+ * priorities run first; a full queue returns 503.</li>
+ * <li>GET /jobs/id returns the job's state and statistics.</li>
+ * <li>GET /jobs/id/stream streams "solution", "progress" and finally "done"
+ * lines until the job finishes.</li>
+ * <li>DELETE /jobs/id cancels the job.</li>
+ * </ul>
+ * <p>
+ * Usage: SolverDaemon [--port 7778] [--runners n] [--queue n]
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class SolverDaemon {
+	private static final int MAX_SOLUTIONS_KEPT = 10000, MAX_FINISHED_JOBS = 1000;
+	private final int queueCapacity;
+	private final ThreadPoolExecutor runners;
+	private final Cache<String, Search> searches = CacheBuilder.newBuilder().maximumSize(64).build();
+	private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong();
+	private SolverDaemon(int runners, int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+		this.runners = new ThreadPoolExecutor(runners, runners, 0, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+	}
+
+	private enum State {QUEUED, RUNNING, FINISHED, CANCELLED, FAILED}
+
+	private final class Job implements Runnable, Comparable<Job>, SolutionSink {
+		final long id = nextId.getAndIncrement();
+		final String puzzle;
+		final Inventory inventory;
+		final long limit;
+		final int priority;
+		final SearchControl control = new SearchControl();
+		//guarded by this
+		State state = State.QUEUED;
+		final List<String> solutions = new ArrayList<>();
+		long solutionsDropped;
+		SearchStatistics finalStatistics;
+		String failure;
+		Job(String puzzle, Inventory inventory, long limit, int priority) {
+			this.puzzle = puzzle;
+			this.inventory = inventory;
+			this.limit = limit;
+			this.priority = priority;
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (state != State.QUEUED) return;
+				state = State.RUNNING;
+			}
+			State end;
+			try {
+				Search search = searches.get(puzzle + "\0" + inventory, () ->
+						new Search(Problem.fromLines(Arrays.asList(puzzle.split("\r?\n"))), inventory));
+				SearchStatistics stats = search.search(0, search.countTrials(), limit, this, null, control);
+				synchronized (this) {
+					finalStatistics = stats;
+				}
+				end = control.isCancelled() ? State.CANCELLED : State.FINISHED;
+			} catch (IOException | ExecutionException | RuntimeException ex) {
+				synchronized (this) {
+					failure = ex.toString();
+				}
+				end = State.FAILED;
+			}
+			synchronized (this) {
+				state = end;
+				notifyAll();
+			}
+			retire();
+		}
+
+		@Override
+		public synchronized void accept(List<List<ImmutableList<Device>>> batch) {
+			for (List<ImmutableList<Device>> s : batch)
+				if (solutions.size() < MAX_SOLUTIONS_KEPT)
+					solutions.add(s.toString());
+				else
+					++solutionsDropped;
+			notifyAll();
+		}
+
+		synchronized void cancel() {
+			if (state == State.QUEUED) {
+				state = State.CANCELLED;
+				runners.remove(this);
+				notifyAll();
+			}
+			control.cancel();
+		}
+
+		synchronized boolean done() {
+			return state != State.QUEUED && state != State.RUNNING;
+		}
+
+		synchronized String status() {
+			SearchStatistics stats = finalStatistics != null ? finalStatistics : control.statistics();
+			return state + (stats != null ? " " + stats : "")
+					+ (solutionsDropped > 0 ? " (" + solutionsDropped + " solutions not kept)" : "")
+					+ (failure != null ? " " + failure : "");
+		}
+
+		@Override
+		public int compareTo(Job o) {
+			//higher priority first, then first come, first served
+			int c = Integer.compare(o.priority, priority);
+			return c != 0 ? c : Long.compare(id, o.id);
+		}
+	}
+
+	/**
+	 * Forgets the oldest finished jobs beyond MAX_FINISHED_JOBS.
+	 */
+	private void retire() {
+		long[] finished = jobs.values().stream().filter(Job::done).mapToLong(j -> j.id).sorted().toArray();
+		for (int i = 0; i < finished.length - MAX_FINISHED_JOBS; ++i)
+			jobs.remove(finished[i]);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String[] path = exchange.getRequestURI().getPath().split("/");
+			//path[0] is empty, path[1] is "jobs"
+			String method = exchange.getRequestMethod();
+			if (path.length == 2 && method.equals("POST"))
+				submit(exchange);
+			else if (path.length >= 3) {
+				Job job = jobs.get(Long.parseLong(path[2]));
+				if (job == null)
+					respond(exchange, 404, "no such job");
+				else if (path.length == 3 && method.equals("GET"))
+					respond(exchange, 200, job.status());
+				else if (path.length == 3 && method.equals("DELETE")) {
+					job.cancel();
+					respond(exchange, 200, job.status());
+				} else if (path.length == 4 && path[3].equals("stream") && method.equals("GET"))
+					stream(exchange, job);
+				else
+					respond(exchange, 404, "not found");
+			} else
+				respond(exchange, 404, "not found");
+		} catch (IllegalArgumentException ex) {
+			respond(exchange, 400, ex.toString());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void submit(HttpExchange exchange) throws IOException {
+		Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+		if (!query.containsKey("devices"))
+			throw new IllegalArgumentException("devices parameter required");
+		int deviceCount = Integer.parseInt(query.get("devices"));
+		Inventory inventory = query.containsKey("inventory")
+				? Inventory.parse(query.get("inventory"), deviceCount) : Inventory.of(deviceCount);
+		long limit = query.containsKey("limit") ? Long.parseLong(query.get("limit")) : Long.MAX_VALUE;
+		int priority = query.containsKey("priority") ? Integer.parseInt(query.get("priority")) : 0;
+		String puzzle = new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8);
+		Job job = new Job(puzzle, inventory, limit, priority);
+		synchronized (runners) {
+			if (runners.getQueue().size() >= queueCapacity) {
+				respond(exchange, 503, "queue full");
+				return;
+			}
+			jobs.put(job.id, job);
+			runners.execute(job);
+		}
+		respond(exchange, 202, Long.toString(job.id));
+	}
+
+	private void stream(HttpExchange exchange, Job job) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(200, 0); //chunked
+		try (PrintWriter out = new PrintWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+			int sent = 0;
+			long lastProgress = 0;
+			while (true) {
+				List<String> fresh;
+				boolean done;
+				synchronized (job) {
+					if (sent == job.solutions.size() && !job.done())
+						job.wait(1000);
+					fresh = new ArrayList<>(job.solutions.subList(sent, job.solutions.size()));
+					done = job.done();
+				}
+				for (String s : fresh)
+					out.println("solution " + s);
+				sent += fresh.size();
+				if (done) {
+					out.println("done " + job.status());
+					return;
+				}
+				if (System.nanoTime() - lastProgress > TimeUnit.SECONDS.toNanos(1)) {
+					out.println("progress " + job.status());
+					lastProgress = System.nanoTime();
+				}
+				out.flush();
+				if (out.checkError()) return; //client went away
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+		byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(code, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> map = new HashMap<>();
+		if (query == null) return map;
+		try {
+			for (String pair : query.split("&")) {
+				int eq = pair.indexOf('=');
+				if (eq < 0)
+					map.put(URLDecoder.decode(pair, "UTF-8"), "");
+				else
+					map.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq+1), "UTF-8"));
+			}
+		} catch (UnsupportedEncodingException ex) {
+			throw new AssertionError(ex);
+		}
+		return map;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = 7778, runnerCount = 2, queueCapacity = 100;
+		for (int i = 0; i < args.length; ++i) {
+			switch (args[i]) {
+				case "--port":
+					port = Integer.parseInt(args[++i]);
+					break;
+				case "--runners":
+					runnerCount = Integer.parseInt(args[++i]);
+					break;
+				case "--queue":
+					queueCapacity = Integer.parseInt(args[++i]);
+					break;
+				default:
+					throw new IllegalArgumentException("unknown option: "+args[i]);
+			}
+		}
+		SolverDaemon daemon = new SolverDaemon(runnerCount, queueCapacity);
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/jobs", exchange -> daemon.handle(exchange));
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		System.err.println("listening on "+server.getAddress());
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+/**
+ * Records which cells received input during one evaluation, and which
+ * row of the truth table rejected the candidate.  Cells with only one
+ * possible device might not be recorded.  Devices never emit
+ * without input, so a board differing only in cells a row didn't light
+ * simulates that row identically.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class Trace {
+	/**
+	 * For each truth table row and cell, the generation of the last
+	 * evaluation in which that row lit that cell, so clearing is just
+	 * starting a new generation.
+	 */
+	private final int[][] lit;
+	private int generation, rejectedRow;
+	Trace(int truthTableRows, int cells) {
+		this.lit = new int[truthTableRows][cells];
+	}
+	void clear() {
+		++generation;
+		rejectedRow = -1;
+	}
+	void light(int ttr, int cell) {
+		lit[ttr][cell] = generation;
+	}
+	/**
+	 * Records that the given row rejected the candidate.
+	 */
+	void reject(int ttr) {
+		rejectedRow = ttr;
+	}
+	/**
+	 * Returns the given row's generations by cell, for a simulator to light
+	 * cells in directly.
+	 */
+	int[] lit(int ttr) {
+		return lit[ttr];
+	}
+	int generation() {
+		return generation;
+	}
+	boolean litIn(int ttr, int cell) {
+		return lit[ttr][cell] == generation;
+	}
+	boolean litInAnyRow(int cell) {
+		for (int[] l : lit)
+			if (l[cell] == generation)
+				return true;
+		return false;
+	}
+	/**
+	 * Returns true if the given cell received input in the row that
+	 * rejected the candidate.
+	 */
+	boolean litInRejectedRow(int cell) {
+		return litIn(rejectedRow, cell);
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches ranges of trials leased from a {@link Coordinator}, using all
+ * this machine's cores on each lease.
+ * <p>
+ * Usage: Worker host port
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class Worker {
+	private Worker() {}
+
+	/**
+	 * Buffers a lease's solutions as solution file records.
+	 */
+	private static final class RecordBuffer implements SolutionSink {
+		private final int recordSize;
+		private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+		private long count;
+		RecordBuffer(int recordSize) {
+			this.recordSize = recordSize;
+		}
+		@Override
+		public synchronized void accept(List<List<ImmutableList<Device>>> solutions) {
+			ByteBuffer buffer = ByteBuffer.allocate(recordSize * solutions.size());
+			SolutionFile.encode(solutions, buffer);
+			records.write(buffer.array(), 0, buffer.position());
+			count += solutions.size();
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String host = args[0];
+		int port = Integer.parseInt(args[1]);
+		try (Socket s = new Socket(host, port);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+			out.writeByte(Coordinator.HELLO);
+			out.writeUTF(ManagementFactory.getRuntimeMXBean().getName());
+			out.flush();
+			if (in.readByte() != Coordinator.CONFIG)
+				throw new IOException("expected CONFIG");
+			List<String> puzzle = new ArrayList<>();
+			for (int i = in.readInt(); i > 0; --i)
+				puzzle.add(in.readUTF());
+			String inventorySpec = in.readUTF();
+			int deviceCount = in.readInt();
+			long totalTrials = in.readLong(), heartbeatNanos = in.readLong();
+			Inventory inventory = inventorySpec.isEmpty() ? Inventory.of(deviceCount) : Inventory.parse(inventorySpec, deviceCount);
+			Search search = new Search(Problem.fromLines(puzzle), inventory);
+			if (search.countTrials() != totalTrials)
+				throw new IOException(String.format("coordinator has %d trials, but we have %d", totalTrials, search.countTrials()));
+			int recordSize = Arrays.stream(search.rowLengths()).sum();
+
+			long[] currentLease = {-1};
+			ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "heartbeat");
+				t.setDaemon(true);
+				return t;
+			});
+			heartbeat.scheduleAtFixedRate(() -> {
+				try {
+					synchronized (out) {
+						if (currentLease[0] < 0) return;
+						out.writeByte(Coordinator.HEARTBEAT);
+						out.writeLong(currentLease[0]);
+						out.flush();
+					}
+				} catch (IOException ex) {
+					//the main thread will notice too
+				}
+			}, heartbeatNanos, heartbeatNanos, TimeUnit.NANOSECONDS);
+
+			try {
+				while (true) {
+					synchronized (out) {
+						out.writeByte(Coordinator.REQUEST);
+						out.flush();
+					}
+					byte message = in.readByte();
+					if (message == Coordinator.DONE)
+						break;
+					else if (message == Coordinator.WAIT)
+						Thread.sleep(in.readLong());
+					else if (message == Coordinator.LEASE) {
+						long id = in.readLong(), begin = in.readLong(), end = in.readLong();
+						synchronized (out) {
+							currentLease[0] = id;
+						}
+						RecordBuffer buffer = new RecordBuffer(recordSize);
+						SearchStatistics stats = search.search(begin, end, Long.MAX_VALUE, buffer, null);
+						System.out.format("lease %d [%d, %d): %s%n", id, begin, end, stats);
+						synchronized (out) {
+							currentLease[0] = -1;
+							out.writeByte(Coordinator.RESULT);
+							out.writeLong(id);
+							out.writeLong(stats.trials());
+							out.writeLong(buffer.count);
+							out.writeInt(buffer.records.size());
+							buffer.records.writeTo(out);
+							out.flush();
+						}
+					} else
+						throw new IOException("unexpected message "+message);
+				}
+			} finally {
+				heartbeat.shutdownNow();
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.util.Arrays;
+import java.util.List;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link RowSimulator} ticking a vector's worth of cells at a time.  Each
+ * cell's input is gathered from its neighbors' outputs (cells without a
+ * neighbor in some direction gather from a padding cell that stays dark),
+ * and its output is looked up in its device's packed table (see
+ * {@link RowSimulatorCompiler#table(Device)}), split into halves for inputs
+ * below and above 8 so each half fits in an int lane.  Emitters are applied
+ * as a per-cell mask and set bits, so they need not be walls.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+final class VectorRowSimulator implements RowSimulator {
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+	private static final int[] LOW_TABLES = new int[DeviceList.CODES], HIGH_TABLES = new int[DeviceList.CODES];
+	static {
+		for (int code = 0; code < LOW_TABLES.length; ++code) {
+			Device d = DeviceList.device((byte)code);
+			if (d == null) continue;
+			long table = RowSimulatorCompiler.table(d);
+			LOW_TABLES[code] = (int)table;
+			HIGH_TABLES[code] = (int)(table >>> 32);
+		}
+	}
+	private final int cells, length, quiescenceTicks;
+	/**
+	 * For each Direction ordinal, each cell's neighbor in that direction, or
+	 * the padding cell (at index cells).
+	 */
+	private final int[][] neighbors = new int[4][];
+	/**
+	 * For each truth table row, the mask applied to and the bits then set in
+	 * each cell's output.
+	 */
+	private final int[][] keep, set;
+	/**
+	 * Each receiver's neighbor cell (or the padding cell), the bit it reads
+	 * from that cell, and its expected value for each truth table row.
+	 */
+	private final int[] receiverCells, receiverShifts;
+	private final boolean[][] expected;
+	/**
+	 * Per-thread scratch: two states and the low and high table halves.
+	 */
+	private final ThreadLocal<int[][]> scratch;
+	VectorRowSimulator(BoardShape shape, List<Terminal> emitters, List<Terminal> receivers, int truthTableRows, int quiescenceTicks) {
+		this.cells = shape.cells();
+		//leave room for the padding cell
+		this.length = (cells / SPECIES.length() + 1) * SPECIES.length();
+		this.quiescenceTicks = quiescenceTicks;
+		for (Direction dir : Direction.values()) {
+			int[] n = new int[length];
+			Arrays.fill(n, cells);
+			for (int i = 0; i < cells; ++i) {
+				int nb = shape.neighbor(i, dir);
+				if (nb >= 0) n[i] = nb;
+			}
+			neighbors[dir.ordinal()] = n;
+		}
+
+		this.keep = new int[truthTableRows][length];
+		this.set = new int[truthTableRows][length];
+		for (int ttr = 0; ttr < truthTableRows; ++ttr) {
+			Arrays.fill(keep[ttr], -1);
+			for (Terminal t : emitters) {
+				int bit = 1 << t.dir().ordinal();
+				keep[ttr][t.index()] &= ~bit;
+				if (t.values().get(ttr))
+					set[ttr][t.index()] |= bit;
+			}
+		}
+
+		this.receiverCells = new int[receivers.size()];
+		this.receiverShifts = new int[receivers.size()];
+		this.expected = new boolean[truthTableRows][receivers.size()];
+		for (int r = 0; r < receivers.size(); ++r) {
+			Terminal t = receivers.get(r);
+			int nb = shape.neighbor(t.index(), t.dir());
+			receiverCells[r] = nb >= 0 ? nb : cells;
+			receiverShifts[r] = t.dir().ordinal() ^ 2;
+			for (int ttr = 0; ttr < truthTableRows; ++ttr)
+				expected[ttr][r] = t.values().get(ttr);
+		}
+		this.scratch = ThreadLocal.withInitial(() -> new int[4][length]);
+	}
+
+	@Override
+	public int simulate(int ttr, byte[] codes, int[] a, int[] b, int[] lit, int generation) {
+		int[][] s = scratch.get();
+		int[] prev = s[0], next = s[1], low = s[2], high = s[3];
+		for (int i = 0; i < cells; ++i) {
+			low[i] = LOW_TABLES[codes[i]];
+			high[i] = HIGH_TABLES[codes[i]];
+		}
+		int[] k = keep[ttr], st = set[ttr];
+		System.arraycopy(st, 0, next, 0, length);
+
+		int ticks = 0;
+		boolean changed;
+		do {
+			int[] swaptemp = prev;
+			prev = next;
+			next = swaptemp;
+			changed = tick(prev, next, low, high, k, st, lit, generation);
+		} while (changed && ++ticks < quiescenceTicks);
+		if (ticks >= quiescenceTicks)
+			return UNSTABLE;
+
+		boolean[] e = expected[ttr];
+		for (int r = 0; r < receiverCells.length; ++r)
+			if (((next[receiverCells[r]] >>> receiverShifts[r] & 1) != 0) != e[r])
+				return WRONG_OUTPUT;
+		return PASSED;
+	}
+
+	/**
+	 * Computes next from prev, returning true if they differ.
+	 */
+	private boolean tick(int[] prev, int[] next, int[] low, int[] high, int[] keep, int[] set, int[] lit, int generation) {
+		IntVector diff = IntVector.zero(SPECIES);
+		IntVector mark = IntVector.broadcast(SPECIES, generation);
+		int[] up = neighbors[0], right = neighbors[1], down = neighbors[2], left = neighbors[3];
+		for (int i = 0; i < length; i += SPECIES.length()) {
+			//the input from each direction is the neighbor's output in the opposite direction
+			IntVector in = IntVector.fromArray(SPECIES, prev, 0, up, i).lanewise(VectorOperators.LSHR, 2).and(1)
+					.or(IntVector.fromArray(SPECIES, prev, 0, right, i).lanewise(VectorOperators.LSHR, 2).and(2))
+					.or(IntVector.fromArray(SPECIES, prev, 0, down, i).lanewise(VectorOperators.LSHL, 2).and(4))
+					.or(IntVector.fromArray(SPECIES, prev, 0, left, i).lanewise(VectorOperators.LSHL, 2).and(8));
+			IntVector table = IntVector.fromArray(SPECIES, low, i)
+					.blend(IntVector.fromArray(SPECIES, high, i), in.compare(VectorOperators.GE, 8));
+			IntVector out = table.lanewise(VectorOperators.LSHR, in.and(7).lanewise(VectorOperators.LSHL, 2)).and(15)
+					.and(IntVector.fromArray(SPECIES, keep, i))
+					.or(IntVector.fromArray(SPECIES, set, i));
+			diff = diff.or(out.lanewise(VectorOperators.XOR, IntVector.fromArray(SPECIES, prev, i)));
+			out.intoArray(next, i);
+			VectorMask<Integer> lighted = in.compare(VectorOperators.NE, 0).and(SPECIES.indexInRange(i, cells));
+			mark.intoArray(lit, i, lighted);
+		}
+		return diff.reduceLanes(VectorOperators.OR) != 0;
+	}
+}
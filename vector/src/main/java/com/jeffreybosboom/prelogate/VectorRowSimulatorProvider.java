@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 Jeffrey Bosboom.
+ * This file is part of prelogate-solver.
+ *
+ * prelogate-solver is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * prelogate-solver is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with prelogate-solver.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.jeffreybosboom.prelogate;
+
+import com.jeffreybosboom.prelogate.Problem.Terminal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Provides {@link VectorRowSimulator}s when the JVM was started with the
+ * Vector API's incubator module.
+ * @author Jeffrey Bosboom <jbosboom@csail.mit.edu>
+ * @since 10/19/2026
+ */
+public final class VectorRowSimulatorProvider implements RowSimulatorProvider {
+	public VectorRowSimulatorProvider() {}
+
+	@Override
+	public RowSimulator create(BoardShape shape, List<Set<Device>> domains, List<Terminal> emitters, List<Terminal> receivers,
+			int truthTableRows, int quiescenceTicks) {
+		//incubator modules aren't resolved by default; touching the simulator
+		//class without it would throw NoClassDefFoundError
+		if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+			return null;
+		return new VectorRowSimulator(shape, emitters, receivers, truthTableRows, quiescenceTicks);
+	}
+}